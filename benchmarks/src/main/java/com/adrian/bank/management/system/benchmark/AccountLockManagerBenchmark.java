@@ -0,0 +1,61 @@
+package com.adrian.bank.management.system.benchmark;
+
+import com.adrian.bank.management.system.service.AccountLockManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Transfer throughput under contention with Zipfian account access.
+ * <p>
+ * {@code stripes = 1} behaves like a single global lock and is the baseline for the striped variants.
+ * Run with {@code -t 16} (or more) to see how throughput scales with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class AccountLockManagerBenchmark {
+
+    @Param({"1", "64", "1024"})
+    int stripes;
+
+    @Param({"100000"})
+    int accounts;
+
+    @Param({"0.8", "0.99"})
+    double skew;
+
+    // Simulated work done while both accounts are locked
+    @Param({"100"})
+    int criticalSectionTokens;
+
+    AccountLockManager lockManager;
+
+    ZipfianGenerator accountIds;
+
+    @Setup
+    public void setUp() {
+        lockManager = new AccountLockManager(stripes, TimeUnit.SECONDS.toMillis(30));
+        accountIds = new ZipfianGenerator(accounts, skew);
+    }
+
+    @Benchmark
+    public void transfer() {
+        Integer sender = accountIds.next();
+        Integer receiver = accountIds.next();
+
+        List<ReentrantLock> locks = lockManager.lock(sender, receiver);
+        try {
+            Blackhole.consumeCPU(criticalSectionTokens);
+        } finally {
+            lockManager.unlock(locks);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.adrian.bank.management.system.benchmark;
+
+import com.adrian.bank.management.system.dto.TransferRequest;
+import com.adrian.bank.management.system.entity.Account;
+import com.adrian.bank.management.system.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Money movements through {@link AccountService} against the benchmark database, in each locking mode.
+ * Accounts are picked with Zipfian skew, so hot accounts see contention. Every operation commits its own
+ * transaction, including the transaction rows, the same work a request does after authentication.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class AccountServiceBenchmark {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000");
+
+    static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"ATOMIC", "PESSIMISTIC", "OPTIMISTIC"})
+    String lockingMode;
+
+    @Param({"1000"})
+    int accounts;
+
+    @Param({"0.8"})
+    double skew;
+
+    @Param({BankApplication.H2_URL})
+    String jdbcUrl;
+
+    @Param({"sa"})
+    String username;
+
+    @Param({""})
+    String password;
+
+    ConfigurableApplicationContext context;
+
+    AccountService accountService;
+
+    List<Account> accountList;
+
+    ZipfianGenerator accountIndexes;
+
+    @Setup
+    public void setUp() {
+        context = BankApplication.start(jdbcUrl, username, password,
+                "bank.app.accountLockingMode=" + lockingMode);
+        accountService = context.getBean(AccountService.class);
+        accountList = BankApplication.createAccounts(context, "benchmark", accounts, INITIAL_BALANCE);
+        accountIndexes = new ZipfianGenerator(accounts, skew);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void makeTransfer() {
+        int senderIndex = accountIndexes.next() - 1;
+        int receiverIndex = accountIndexes.next() - 1;
+
+        // Both draws hit the same hot account often, the receiver is then the next account
+        if (senderIndex == receiverIndex) {
+            receiverIndex = (receiverIndex + 1) % accounts;
+        }
+
+        Account sender = accountList.get(senderIndex);
+        Account receiver = accountList.get(receiverIndex);
+
+        accountService.makeTransfer(sender.getUser().getId(), sender.getId(),
+                new TransferRequest(receiver.getId(), AMOUNT));
+    }
+
+    @Benchmark
+    public void withdraw() {
+        Account account = nextAccount();
+
+        accountService.withdraw(account.getId(), account.getUser().getId(), AMOUNT);
+    }
+
+    @Benchmark
+    public void deposit() {
+        Account account = nextAccount();
+
+        accountService.deposit(account.getId(), account.getUser().getId(), AMOUNT);
+    }
+
+    private Account nextAccount() {
+        return accountList.get(accountIndexes.next() - 1);
+    }
+}
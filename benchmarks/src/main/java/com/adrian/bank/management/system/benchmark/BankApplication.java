@@ -0,0 +1,91 @@
+package com.adrian.bank.management.system.benchmark;
+
+import com.adrian.bank.management.system.BankManagementSystemApplication;
+import com.adrian.bank.management.system.entity.*;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application against the benchmark database and creates test data.
+ */
+final class BankApplication {
+
+    static final String H2_URL = "jdbc:h2:mem:bank;DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER,VALUE";
+
+    private BankApplication() {
+    }
+
+    // Passed as arguments, so they override application.yml. Web security needs the servlet context,
+    // the server is started on a random port
+    static ConfigurableApplicationContext start(String jdbcUrl, String username, String password,
+                                                String... properties) {
+        return start(context -> {
+        }, jdbcUrl, username, password, properties);
+    }
+
+    // The initializer runs before any bean is created, e.g. to register a BeanPostProcessor
+    static ConfigurableApplicationContext start(ApplicationContextInitializer<ConfigurableApplicationContext> initializer,
+                                                String jdbcUrl, String username, String password,
+                                                String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--logging.level.root=WARN"));
+
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+
+        return new SpringApplicationBuilder(BankManagementSystemApplication.class)
+                .initializers(initializer)
+                .run(args.toArray(String[]::new));
+    }
+
+    static Account createAccount(ConfigurableApplicationContext context, String username) {
+        return createAccounts(context, username, 1, BigDecimal.ZERO).get(0);
+    }
+
+    // Every account has its own user, named username-1..count when more than one is created
+    static List<Account> createAccounts(ConfigurableApplicationContext context, String username, int count,
+                                        BigDecimal balance) {
+        EntityManager entityManager = context.getBean(EntityManager.class);
+
+        return context.getBean(TransactionTemplate.class).execute(status -> {
+            Role role = new Role(ERole.ROLE_CUSTOMER);
+            entityManager.persist(role);
+
+            List<Account> accounts = new ArrayList<>();
+            for (int i = 1; i <= count; i++) {
+                User user = User.builder()
+                        .username(count == 1 ? username : username + "-" + i)
+                        .role(role)
+                        .registrationDate(LocalDate.now())
+                        .build();
+                entityManager.persist(user);
+
+                Account account = Account.builder()
+                        .balance(balance)
+                        .openingDate(LocalDate.now())
+                        .user(user)
+                        .build();
+                entityManager.persist(account);
+
+                accounts.add(account);
+            }
+
+            return accounts;
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package com.adrian.bank.management.system.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files and exits with status 1 when a benchmark got slower than the threshold,
+ * so a build can fail on a regression:
+ * <pre>
+ * java -cp target/benchmarks.jar com.adrian.bank.management.system.benchmark.BenchmarkComparison \
+ *     baseline.json current.json [thresholdPercent=10]
+ * </pre>
+ * Benchmarks are matched by name and parameters. Throughput is better when higher, every other mode when lower.
+ * Benchmarks missing from either file are listed but never fail the comparison.
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+
+        double thresholdPercent = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+
+            if (before == null) {
+                System.out.printf("%-100s %s%n", entry.getKey(), "new");
+                continue;
+            }
+
+            // Positive change is an improvement in either mode
+            double changePercent = (after.value() - before.value()) / before.value() * 100;
+            if (!after.higherIsBetter()) {
+                changePercent = -changePercent;
+            }
+
+            boolean regression = changePercent < -thresholdPercent;
+            if (regression) {
+                regressions++;
+            }
+
+            System.out.printf("%-100s %12.3f -> %12.3f %s %+7.1f%%%s%n", entry.getKey(), before.value(),
+                    after.value(), after.unit(), changePercent, regression ? "  REGRESSION" : "");
+        }
+
+        for (String benchmark : baseline.keySet()) {
+            if (!current.containsKey(benchmark)) {
+                System.out.printf("%-100s %s%n", benchmark, "missing");
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmarks slower by more than %.1f%%%n", regressions, thresholdPercent);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            Map<String, String> params = new LinkedHashMap<>();
+            JsonNode paramsNode = result.path("params");
+            for (Iterator<Map.Entry<String, JsonNode>> it = paramsNode.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> param = it.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+
+            String key = result.get("benchmark").asText() + (params.isEmpty() ? "" : " " + params);
+            JsonNode metric = result.get("primaryMetric");
+
+            scores.put(key, new Score(metric.get("score").asDouble(), metric.get("scoreUnit").asText(),
+                    "thrpt".equals(result.get("mode").asText())));
+        }
+
+        return scores;
+    }
+
+    private record Score(double value, String unit, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.adrian.bank.management.system.benchmark;
+
+import com.adrian.bank.management.system.converter.AccountConverter;
+import com.adrian.bank.management.system.converter.UserConverter;
+import com.adrian.bank.management.system.dto.AccountInformation;
+import com.adrian.bank.management.system.dto.UserProfile;
+import com.adrian.bank.management.system.entity.Account;
+import com.adrian.bank.management.system.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to dto conversion on every account and profile response. Run with {@code -prof gc} to see the
+ * allocation per conversion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+    Account account;
+
+    User user;
+
+    @Setup
+    public void setUp() {
+        user = User.builder()
+                .id(1)
+                .username("customer")
+                .name("Jan Kowalski")
+                .phone("123456789")
+                .email("customer@bank.com")
+                .registrationDate(LocalDate.now())
+                .build();
+
+        account = Account.builder()
+                .id(1)
+                .balance(new BigDecimal("1234.56"))
+                .openingDate(LocalDate.now())
+                .user(user)
+                .build();
+    }
+
+    @Benchmark
+    public AccountInformation accountToDto() {
+        return AccountConverter.convertToDto(account);
+    }
+
+    @Benchmark
+    public UserProfile userToDto() {
+        return UserConverter.convertToDto(user);
+    }
+}
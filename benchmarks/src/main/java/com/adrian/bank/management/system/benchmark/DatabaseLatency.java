@@ -0,0 +1,68 @@
+package com.adrian.bank.management.system.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Adds a fixed delay to every statement execution, so in-memory H2 behaves like a db across the network.
+ * The request thread sleeps while it holds the connection, the same way it waits for a remote db.
+ */
+final class DatabaseLatency implements BeanPostProcessor {
+
+    private final long latencyMs;
+
+    DatabaseLatency(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && latencyMs > 0) {
+            return proxy(DataSource.class, dataSource);
+        }
+        return bean;
+    }
+
+    private <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().startsWith("execute") && target instanceof Statement) {
+                Thread.sleep(latencyMs);
+            }
+
+            Object result = invoke(method, target, args);
+
+            if (result instanceof Connection connection) {
+                return proxy(Connection.class, connection);
+            }
+            if (result instanceof CallableStatement statement) {
+                return proxy(CallableStatement.class, statement);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return proxy(PreparedStatement.class, statement);
+            }
+            if (result instanceof Statement statement && !(target instanceof Statement)) {
+                return proxy(Statement.class, statement);
+            }
+            return result;
+        };
+
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.adrian.bank.management.system.benchmark;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Bulk loads customers, one account each, and their transaction history with plain JDBC batches. Activity is
+ * skewed: accounts are picked with Zipfian distribution, the lowest account ids are the busiest ones, so a few
+ * accounts own long histories and most own a handful of rows. Balances and amounts are log-normal. Transfers
+ * are recorded with both legs. Balances are not the sum of the generated history.
+ * <p>
+ * Rows are appended after the highest existing ids and the id sequences are moved past them, so the application
+ * can keep inserting afterwards. The schema has to exist, start the application once with
+ * {@code ddl-auto: update} first:
+ * <pre>
+ * java -cp target/benchmarks.jar com.adrian.bank.management.system.benchmark.DatasetGenerator \
+ *     jdbc:mysql://localhost:3306/bankDb?rewriteBatchedStatements=true root root [users=1000000] \
+ *     [transactions=20000000] [skew=0.99]
+ * </pre>
+ * Every generated user logs in as {@code user-<id>} with password {@value #PASSWORD}.
+ */
+public final class DatasetGenerator {
+
+    static final String PASSWORD = "password";
+
+    private static final int BATCH_SIZE = 5000;
+
+    // Ids of the pooled sequences are handed out in blocks of this size, see the entities
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Duration HISTORY_SPAN = Duration.ofDays(2 * 365);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(42);
+
+    DatasetGenerator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: DatasetGenerator <jdbcUrl> <username> <password> [users] [transactions] [skew]");
+            System.exit(2);
+        }
+
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+        long transactions = args.length > 4 ? Long.parseLong(args[4]) : 20_000_000;
+        double skew = args.length > 5 ? Double.parseDouble(args[5]) : 0.99;
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(args[0], args[1], args[2]));
+        Dataset dataset = new DatasetGenerator(jdbcTemplate).generate(users, transactions, skew);
+
+        System.out.printf("Accounts %d..%d, users user-%d..user-%d%n", dataset.accountId(0),
+                dataset.accountId(users - 1), dataset.firstUserId(), dataset.firstUserId() + users - 1);
+    }
+
+    Dataset generate(int users, long transactions, double skew) {
+        long started = System.nanoTime();
+
+        int roleId = customerRoleId();
+        int firstUserId = nextId("user");
+        int firstAccountId = nextId("account");
+        int firstTransactionId = nextId("transaction");
+
+        List<LocalDate> registrationDates = insertUsers(users, firstUserId, roleId);
+        insertAccounts(firstAccountId, firstUserId, registrationDates);
+        long inserted = insertTransactions(transactions, firstTransactionId, firstAccountId, users, skew);
+
+        advanceSequence("user_seq", firstUserId + users);
+        advanceSequence("account_seq", firstAccountId + users);
+        advanceSequence("transaction_seq", firstTransactionId + inserted);
+
+        System.out.printf("Generated %d users and accounts, %d transactions in %d s%n", users, inserted,
+                Duration.ofNanos(System.nanoTime() - started).toSeconds());
+
+        return new Dataset(firstUserId, firstAccountId, users);
+    }
+
+    private int customerRoleId() {
+        List<Integer> ids = jdbcTemplate.queryForList("select id from role where name = 'ROLE_CUSTOMER'", Integer.class);
+        if (!ids.isEmpty()) {
+            return ids.get(0);
+        }
+
+        jdbcTemplate.update("insert into role (name) values ('ROLE_CUSTOMER')");
+        return jdbcTemplate.queryForObject("select id from role where name = 'ROLE_CUSTOMER'", Integer.class);
+    }
+
+    private int nextId(String table) {
+        Integer maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Integer.class);
+        return maxId == null ? 1 : maxId + 1;
+    }
+
+    private List<LocalDate> insertUsers(int users, int firstUserId, int roleId) {
+        // One hash for everyone, hashing millions of passwords would take hours
+        String passwordHash = "{bcrypt}" + new BCryptPasswordEncoder(10).encode(PASSWORD);
+        LocalDate today = LocalDate.now();
+
+        List<LocalDate> registrationDates = new ArrayList<>(users);
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+
+        for (int i = 0; i < users; i++) {
+            int id = firstUserId + i;
+            LocalDate registrationDate = today.minusDays(random.nextInt(5 * 365));
+            registrationDates.add(registrationDate);
+
+            rows.add(new Object[]{id, "user-" + id + "@bank.com", "User " + id, passwordHash,
+                    String.valueOf(500_000_000 + random.nextInt(400_000_000)), Date.valueOf(registrationDate),
+                    "user-" + id, roleId});
+
+            if (rows.size() == BATCH_SIZE || i == users - 1) {
+                jdbcTemplate.batchUpdate("""
+                        insert into user (id, email, name, password, phone, registration_date, username, role_id)
+                        values (?, ?, ?, ?, ?, ?, ?, ?)""", rows);
+                rows.clear();
+            }
+        }
+
+        return registrationDates;
+    }
+
+    private void insertAccounts(int firstAccountId, int firstUserId, List<LocalDate> registrationDates) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+
+        for (int i = 0; i < registrationDates.size(); i++) {
+            // Median around 1100, a long tail of rich accounts, nobody below 100
+            BigDecimal balance = logNormal(7, 1.5).max(BigDecimal.valueOf(100));
+
+            rows.add(new Object[]{firstAccountId + i, balance, Date.valueOf(registrationDates.get(i)),
+                    firstUserId + i, 0});
+
+            if (rows.size() == BATCH_SIZE || i == registrationDates.size() - 1) {
+                jdbcTemplate.batchUpdate("""
+                        insert into account (id, balance, opening_date, user_id, version)
+                        values (?, ?, ?, ?, ?)""", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    private long insertTransactions(long transactions, int firstTransactionId, int firstAccountId, int accounts,
+                                    double skew) {
+        ZipfianGenerator accountIndexes = new ZipfianGenerator(accounts, skew);
+        LocalDateTime from = LocalDateTime.now().minus(HISTORY_SPAN);
+        long stepMillis = Math.max(1, HISTORY_SPAN.toMillis() / Math.max(1, transactions));
+
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE + 1);
+        long inserted = 0;
+
+        while (inserted + rows.size() < transactions) {
+            int id = (int) (firstTransactionId + inserted + rows.size());
+            int accountId = firstAccountId + accountIndexes.next() - 1;
+            Timestamp dateTime = Timestamp.valueOf(from.plus(Duration.ofMillis(stepMillis * (id - firstTransactionId))));
+            BigDecimal amount = logNormal(4, 1.2).max(BigDecimal.ONE);
+            int kind = random.nextInt(10);
+
+            if (kind < 4) {
+                rows.add(new Object[]{id, amount, dateTime, "DEPOSIT", accountId, null});
+            } else if (kind < 7 || accounts == 1) {
+                rows.add(new Object[]{id, amount, dateTime, "WITHDRAW", accountId, null});
+            } else {
+                // Receivers are skewed too, popular accounts send and receive most transfers
+                int receiverId = firstAccountId + accountIndexes.next() - 1;
+                if (receiverId == accountId) {
+                    receiverId = accountId == firstAccountId ? accountId + 1 : accountId - 1;
+                }
+
+                String transferId = UUID.randomUUID().toString();
+                rows.add(new Object[]{id, amount, dateTime, "TRANSFER", accountId, transferId});
+                rows.add(new Object[]{id + 1, amount, dateTime, "INCOMING_TRANSFER", receiverId, transferId});
+            }
+
+            if (rows.size() >= BATCH_SIZE || inserted + rows.size() >= transactions) {
+                jdbcTemplate.batchUpdate("""
+                        insert into transaction (id, amount, date_time, type, account_id, transfer_id)
+                        values (?, ?, ?, ?, ?, ?)""", rows);
+
+                // Progress about every million rows
+                if ((inserted + rows.size()) / 1_000_000 > inserted / 1_000_000) {
+                    System.out.printf("%d transactions%n", inserted + rows.size());
+                }
+
+                inserted += rows.size();
+                rows.clear();
+            }
+        }
+
+        return inserted;
+    }
+
+    // The next block the application allocates has to start above the generated ids
+    private void advanceSequence(String sequence, long nextId) {
+        long nextValue = nextId + ALLOCATION_SIZE;
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+
+        // Hibernate emulates sequences on MySQL with a single row table
+        if ("MySQL".equalsIgnoreCase(database)) {
+            jdbcTemplate.update("update " + sequence + " set next_val = greatest(next_val, ?)", nextValue);
+        } else {
+            jdbcTemplate.execute("alter sequence " + sequence + " restart with " + nextValue);
+        }
+    }
+
+    private BigDecimal logNormal(double mean, double deviation) {
+        return BigDecimal.valueOf(Math.exp(mean + deviation * random.nextGaussian()))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Generated users and their accounts, the n-th user owns the n-th account.
+     */
+    record Dataset(int firstUserId, int firstAccountId, int accounts) {
+
+        String username(int index) {
+            return "user-" + (firstUserId + index);
+        }
+
+        int accountId(int index) {
+            return firstAccountId + index;
+        }
+    }
+}
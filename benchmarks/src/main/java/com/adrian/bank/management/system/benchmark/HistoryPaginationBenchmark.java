@@ -0,0 +1,109 @@
+package com.adrian.bank.management.system.benchmark;
+
+import com.adrian.bank.management.system.dto.TransactionCursor;
+import com.adrian.bank.management.system.dto.TransactionDTO;
+import com.adrian.bank.management.system.dto.TransactionHistoryPage;
+import com.adrian.bank.management.system.entity.Account;
+import com.adrian.bank.management.system.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one history page at a given depth (number of pages skipped) for an account with many
+ * transactions: OFFSET paging with its count query versus keyset paging with a cursor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryPaginationBenchmark {
+
+    static final int PAGE_SIZE = 20;
+
+    static final LocalDateTime FIRST_TRANSACTION_TIME = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Param({"100000"})
+    int transactions;
+
+    @Param({"0", "100", "1000", "4000"})
+    int depth;
+
+    @Param({BankApplication.H2_URL})
+    String jdbcUrl;
+
+    @Param({"sa"})
+    String username;
+
+    @Param({""})
+    String password;
+
+    ConfigurableApplicationContext context;
+
+    TransactionService transactionService;
+
+    Account account;
+
+    Pageable offsetPage;
+
+    String cursor;
+
+    @Setup
+    public void setUp() {
+        context = BankApplication.start(jdbcUrl, username, password);
+        transactionService = context.getBean(TransactionService.class);
+        account = BankApplication.createAccount(context, "benchmark");
+
+        insertTransactions(context.getBean(JdbcTemplate.class));
+
+        offsetPage = PageRequest.of(depth, PAGE_SIZE, Sort.by(Sort.Order.desc("dateTime"), Sort.Order.desc("id")));
+
+        // Transaction with id n happened n - 1 seconds after the first one, the newest is listed first
+        int lastSkippedId = transactions - depth * PAGE_SIZE + 1;
+        cursor = depth == 0 ? null : new TransactionCursor(
+                FIRST_TRANSACTION_TIME.plusSeconds(lastSkippedId - 1), lastSkippedId).encode();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<TransactionDTO> offsetPage() {
+        return transactionService.getTransactionsForUserAccount(account.getUser().getId(), account.getId(), offsetPage);
+    }
+
+    @Benchmark
+    public TransactionHistoryPage keysetPage() {
+        return transactionService.getTransactionHistory(account.getUser().getId(), account.getId(), cursor, PAGE_SIZE);
+    }
+
+    private void insertTransactions(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>();
+
+        for (int id = 1; id <= transactions; id++) {
+            rows.add(new Object[]{id, 10, Timestamp.valueOf(FIRST_TRANSACTION_TIME.plusSeconds(id - 1)),
+                    "DEPOSIT", account.getId()});
+
+            if (rows.size() == 1000 || id == transactions) {
+                jdbcTemplate.batchUpdate(
+                        "insert into transaction (id, amount, date_time, type, account_id) values (?, ?, ?, ?, ?)",
+                        rows);
+                rows.clear();
+            }
+        }
+    }
+}
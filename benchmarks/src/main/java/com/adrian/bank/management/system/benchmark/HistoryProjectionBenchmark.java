@@ -0,0 +1,131 @@
+package com.adrian.bank.management.system.benchmark;
+
+import com.adrian.bank.management.system.dto.TransactionDTO;
+import com.adrian.bank.management.system.entity.Account;
+import com.adrian.bank.management.system.entity.Transaction;
+import com.adrian.bank.management.system.service.TransactionService;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one page of transaction history: loading managed Transaction entities and copying them to dto objects
+ * versus selecting dto objects directly. Run with {@code -prof gc}, {@code gc.alloc.rate.norm} is the number of
+ * bytes allocated per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryProjectionBenchmark {
+
+    static final LocalDateTime FIRST_TRANSACTION_TIME = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Param({"10000"})
+    int transactions;
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    @Param({BankApplication.H2_URL})
+    String jdbcUrl;
+
+    @Param({"sa"})
+    String username;
+
+    @Param({""})
+    String password;
+
+    ConfigurableApplicationContext context;
+
+    TransactionService transactionService;
+
+    TransactionTemplate transactionTemplate;
+
+    EntityManager entityManager;
+
+    Account account;
+
+    Pageable page;
+
+    @Setup
+    public void setUp() {
+        context = BankApplication.start(jdbcUrl, username, password);
+        transactionService = context.getBean(TransactionService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        entityManager = context.getBean(EntityManager.class);
+        account = BankApplication.createAccount(context, "benchmark");
+
+        insertTransactions(context.getBean(JdbcTemplate.class));
+
+        page = PageRequest.of(0, pageSize, Sort.by(Sort.Order.desc("dateTime"), Sort.Order.desc("id")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // What the history endpoint did before: managed entities, each with a lazy account proxy, copied to dto objects
+    @Benchmark
+    public Page<TransactionDTO> entityPage() {
+        return transactionTemplate.execute(status -> {
+            List<TransactionDTO> content = entityManager.createQuery("""
+                            select t from Transaction t
+                            where t.account.id = :accountId and t.account.user.username = :username
+                            order by t.dateTime desc, t.id desc""", Transaction.class)
+                    .setParameter("accountId", account.getId())
+                    .setParameter("username", "benchmark")
+                    .setMaxResults(pageSize)
+                    .getResultStream()
+                    .map(transaction -> new TransactionDTO(transaction.getId(), transaction.getDateTime(),
+                            transaction.getAmount(), transaction.getType()))
+                    .toList();
+
+            Long total = entityManager.createQuery("""
+                            select count(t) from Transaction t
+                            where t.account.id = :accountId and t.account.user.username = :username""", Long.class)
+                    .setParameter("accountId", account.getId())
+                    .setParameter("username", "benchmark")
+                    .getSingleResult();
+
+            return new PageImpl<>(content, page, total);
+        });
+    }
+
+    @Benchmark
+    public Page<TransactionDTO> projectionPage() {
+        return transactionService.getTransactionsForUserAccount(account.getUser().getId(), account.getId(), page);
+    }
+
+    private void insertTransactions(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>();
+
+        for (int id = 1; id <= transactions; id++) {
+            rows.add(new Object[]{id, 10, Timestamp.valueOf(FIRST_TRANSACTION_TIME.plusSeconds(id - 1)),
+                    "DEPOSIT", account.getId()});
+
+            if (rows.size() == 1000 || id == transactions) {
+                jdbcTemplate.batchUpdate(
+                        "insert into transaction (id, amount, date_time, type, account_id) values (?, ?, ?, ?, ?)",
+                        rows);
+                rows.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.adrian.bank.management.system.benchmark;
+
+import com.adrian.bank.management.system.entity.Account;
+import com.adrian.bank.management.system.entity.TransactionType;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Copy of {@link com.adrian.bank.management.system.entity.Transaction} with IDENTITY ids,
+ * the baseline for {@link TransactionInsertBenchmark}.
+ */
+@Entity
+public class IdentityTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    private LocalDateTime dateTime;
+
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType type;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+
+    public void setDateTime(LocalDateTime dateTime) {
+        this.dateTime = dateTime;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public void setType(TransactionType type) {
+        this.type = type;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+}
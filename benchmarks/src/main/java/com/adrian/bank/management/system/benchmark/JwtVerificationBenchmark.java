@@ -0,0 +1,66 @@
+package com.adrian.bank.management.system.benchmark;
+
+import com.adrian.bank.management.system.security.JwtUtils;
+import com.adrian.bank.management.system.security.TokenRevocationRegistry;
+import com.adrian.bank.management.system.security.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens generated and verified per second on a single thread. {@code verifyTwiceWithFreshParser} is what the JWT filter
+ * used to do: validate, then parse again for the username, each time with a new parser and a key decoded
+ * from the secret string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class JwtVerificationBenchmark {
+
+    static final String JWT_SECRET = "GtFPkqzKAbks8cswXPXN";
+
+    @Param({"false", "true"})
+    boolean selfContained;
+
+    JwtUtils jwtUtils;
+
+    UserDetailsImpl userDetails;
+
+    String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils(new TokenRevocationRegistry(), JWT_SECRET, "Authorization", selfContained);
+
+        userDetails = new UserDetailsImpl(1, "customer", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+        token = jwtUtils.generateJwt(userDetails);
+    }
+
+    @Benchmark
+    public String verifyTwiceWithFreshParser() {
+        Jwts.parser().setSigningKey(JWT_SECRET).parseClaimsJws(token);
+
+        return Jwts.parser().setSigningKey(JWT_SECRET).parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public Optional<Claims> parseOnce() {
+        return jwtUtils.parseJwtToken(token);
+    }
+
+    // What a login costs after the password check
+    @Benchmark
+    public String generate() {
+        return jwtUtils.generateJwt(userDetails);
+    }
+}
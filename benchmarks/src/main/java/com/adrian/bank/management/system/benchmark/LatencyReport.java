@@ -0,0 +1,47 @@
+package com.adrian.bank.management.system.benchmark;
+
+import java.util.List;
+
+/**
+ * Throughput and latency percentiles per endpoint, merged from the samples of all load clients.
+ */
+final class LatencyReport {
+
+    private LatencyReport() {
+    }
+
+    static void print(String title, List<String> endpoints, List<LatencySamples> samples, double seconds) {
+        System.out.printf("%n%s%n", title);
+        System.out.printf("%-44s %10s %8s %10s %10s %10s %10s%n", "endpoint", "req/s", "errors", "p50 ms",
+                "p99 ms", "p99.9 ms", "max ms");
+
+        long total = 0;
+        long totalErrors = 0;
+        for (int i = 0; i < endpoints.size(); i++) {
+            int endpoint = i;
+            long[] latencies = samples.stream()
+                    .flatMapToLong(s -> s.latencies(endpoint))
+                    .sorted()
+                    .toArray();
+            long errors = samples.stream()
+                    .mapToLong(s -> s.errors(endpoint))
+                    .sum();
+            total += latencies.length;
+            totalErrors += errors;
+
+            System.out.printf("%-44s %10.0f %8d %10.1f %10.1f %10.1f %10.1f%n", endpoints.get(i),
+                    latencies.length / seconds, errors, percentile(latencies, 0.5), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), percentile(latencies, 1.0));
+        }
+
+        System.out.printf("%-44s %10.0f %8d%n", "total", total / seconds, totalErrors);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
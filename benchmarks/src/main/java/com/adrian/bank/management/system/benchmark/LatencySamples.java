@@ -0,0 +1,42 @@
+package com.adrian.bank.management.system.benchmark;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * Latencies and errors of one load client per endpoint. Only the client's own thread writes them, the report
+ * reads them after the client stopped.
+ */
+final class LatencySamples {
+
+    private final long[][] latencies;
+
+    private final int[] counts;
+
+    private final int[] errors;
+
+    LatencySamples(int endpoints) {
+        latencies = new long[endpoints][64];
+        counts = new int[endpoints];
+        errors = new int[endpoints];
+    }
+
+    void add(int endpoint, long latencyNanos) {
+        if (counts[endpoint] == latencies[endpoint].length) {
+            latencies[endpoint] = Arrays.copyOf(latencies[endpoint], counts[endpoint] * 2);
+        }
+        latencies[endpoint][counts[endpoint]++] = latencyNanos;
+    }
+
+    void error(int endpoint) {
+        errors[endpoint]++;
+    }
+
+    LongStream latencies(int endpoint) {
+        return Arrays.stream(latencies[endpoint], 0, counts[endpoint]);
+    }
+
+    int errors(int endpoint) {
+        return errors[endpoint];
+    }
+}
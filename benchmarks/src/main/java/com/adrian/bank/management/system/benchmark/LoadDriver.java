@@ -0,0 +1,223 @@
+package com.adrian.bank.management.system.benchmark;
+
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts the application, fills its database with {@link DatasetGenerator} and runs a mixed workload over HTTP:
+ * logins, balance reads, history pages and transfers. Clients act as users picked with the same skew as the
+ * data, so busy accounts are also the ones read and written most. Each client sends requests back to back,
+ * a login switches it to another user. Not a JMH benchmark, run with key=value arguments, all optional:
+ * <pre>
+ * java -cp target/benchmarks.jar com.adrian.bank.management.system.benchmark.LoadDriver \
+ *     users=100000 transactions=2000000 skew=0.99 clients=200 durationSec=60 \
+ *     login=1 balance=60 history=25 transfer=14
+ * </pre>
+ * Runs on in-memory H2 unless {@code jdbcUrl}, {@code dbUsername} and {@code dbPassword} point to MySQL, the
+ * schema there is recreated. Throughput and latency percentiles are reported per endpoint.
+ */
+public final class LoadDriver {
+
+    private static final int LOGIN = 0;
+
+    private static final int BALANCE = 1;
+
+    private static final int HISTORY = 2;
+
+    private static final int TRANSFER = 3;
+
+    private static final List<String> ENDPOINTS = List.of(
+            "POST /api/auth/login",
+            "GET /api/accounts/{accountId}",
+            "GET /api/transactions/{accountId}/history",
+            "PATCH /api/accounts/{accountId}/transfer");
+
+    private LoadDriver() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option[1]);
+        }
+
+        int users = Integer.parseInt(options.getOrDefault("users", "100000"));
+        long transactions = Long.parseLong(options.getOrDefault("transactions", "2000000"));
+        double skew = Double.parseDouble(options.getOrDefault("skew", "0.99"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "200"));
+        int durationSec = Integer.parseInt(options.getOrDefault("durationSec", "60"));
+        int[] weights = {
+                Integer.parseInt(options.getOrDefault("login", "1")),
+                Integer.parseInt(options.getOrDefault("balance", "60")),
+                Integer.parseInt(options.getOrDefault("history", "25")),
+                Integer.parseInt(options.getOrDefault("transfer", "14"))};
+
+        ConfigurableApplicationContext context = BankApplication.start(
+                options.getOrDefault("jdbcUrl", BankApplication.H2_URL),
+                options.getOrDefault("dbUsername", "sa"),
+                options.getOrDefault("dbPassword", ""),
+                "server.tomcat.max-connections=" + (clients + 100));
+
+        try {
+            DatasetGenerator.Dataset dataset = new DatasetGenerator(context.getBean(JdbcTemplate.class))
+                    .generate(users, transactions, skew);
+
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+            System.out.printf("%d clients, %d s, mix login/balance/history/transfer %d/%d/%d/%d%n", clients,
+                    durationSec, weights[LOGIN], weights[BALANCE], weights[HISTORY], weights[TRANSFER]);
+
+            load(new Workload("http://localhost:" + port, dataset, new ZipfianGenerator(users, skew), weights),
+                    clients, durationSec);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void load(Workload workload, int clients, int durationSec) throws Exception {
+        // First fifth of the run is warmup, its samples are dropped
+        long start = System.nanoTime();
+        long measureFrom = start + Duration.ofSeconds(durationSec).toNanos() / 5;
+        long end = start + Duration.ofSeconds(durationSec).toNanos();
+
+        List<LatencySamples> samples = new ArrayList<>();
+
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            for (int i = 0; i < clients; i++) {
+                LatencySamples clientSamples = new LatencySamples(ENDPOINTS.size());
+                samples.add(clientSamples);
+
+                executor.execute(() -> new Session(workload, client, clientSamples).run(measureFrom, end));
+            }
+        }
+
+        LatencyReport.print("mixed workload", ENDPOINTS, samples, (end - measureFrom) / 1e9);
+    }
+
+    private record Workload(String baseUrl, DatasetGenerator.Dataset dataset, ZipfianGenerator users,
+                            int[] weights) {
+
+        int nextOperation() {
+            int value = ThreadLocalRandom.current().nextInt(weights[LOGIN] + weights[BALANCE] + weights[HISTORY]
+                    + weights[TRANSFER]);
+
+            for (int operation = LOGIN; operation < TRANSFER; operation++) {
+                value -= weights[operation];
+                if (value < 0) {
+                    return operation;
+                }
+            }
+            return TRANSFER;
+        }
+    }
+
+    // One client, logged in as one user at a time
+    private static final class Session {
+
+        private final Workload workload;
+
+        private final HttpClient client;
+
+        private final LatencySamples samples;
+
+        private int user;
+
+        // User of the login in flight, it becomes the session's user once the login succeeded
+        private int loginUser;
+
+        private String token;
+
+        Session(Workload workload, HttpClient client, LatencySamples samples) {
+            this.workload = workload;
+            this.client = client;
+            this.samples = samples;
+        }
+
+        void run(long measureFrom, long end) {
+            while (System.nanoTime() < end) {
+                int operation = token == null ? LOGIN : workload.nextOperation();
+                HttpRequest request = request(operation);
+
+                long sent = System.nanoTime();
+                try {
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    long received = System.nanoTime();
+
+                    if (response.statusCode() != 200) {
+                        samples.error(operation);
+                        continue;
+                    }
+
+                    if (operation == LOGIN) {
+                        user = loginUser;
+                        token = response.body();
+                    }
+                    if (sent >= measureFrom && received <= end) {
+                        samples.add(operation, received - sent);
+                    }
+                } catch (Exception e) {
+                    samples.error(operation);
+                }
+            }
+        }
+
+        private HttpRequest request(int operation) {
+            DatasetGenerator.Dataset dataset = workload.dataset();
+            int accountId = dataset.accountId(user);
+
+            return switch (operation) {
+                case LOGIN -> {
+                    loginUser = workload.users().next() - 1;
+
+                    yield HttpRequest.newBuilder(URI.create(workload.baseUrl() + "/api/auth/login"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"%s\",\"password\":\"%s\"}"
+                                    .formatted(dataset.username(loginUser), DatasetGenerator.PASSWORD)))
+                            .timeout(Duration.ofSeconds(60))
+                            .build();
+                }
+                case BALANCE -> authenticated("/api/accounts/" + accountId).GET().build();
+                case HISTORY -> authenticated("/api/transactions/" + accountId + "/history?size=20").GET().build();
+                default -> {
+                    // Receivers follow the same skew, busy accounts get about as much as they send and don't run dry
+                    int receiver = workload.users().next() - 1;
+                    if (receiver == user) {
+                        receiver = (receiver + 1) % dataset.accounts();
+                    }
+
+                    yield authenticated("/api/accounts/" + accountId + "/transfer")
+                            .header("Content-Type", "application/json")
+                            .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                                    "{\"accountIdTarget\":%d,\"value\":1}".formatted(dataset.accountId(receiver))))
+                            .build();
+                }
+            };
+        }
+
+        private HttpRequest.Builder authenticated(String path) {
+            return HttpRequest.newBuilder(URI.create(workload.baseUrl() + path))
+                    .header("Authorization", token)
+                    .timeout(Duration.ofSeconds(60));
+        }
+    }
+}
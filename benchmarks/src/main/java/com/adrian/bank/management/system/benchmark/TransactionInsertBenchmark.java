@@ -0,0 +1,108 @@
+package com.adrian.bank.management.system.benchmark;
+
+import com.adrian.bank.management.system.entity.Account;
+import com.adrian.bank.management.system.entity.Transaction;
+import com.adrian.bank.management.system.entity.TransactionType;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk inserts of transaction rows (one db transaction per invocation) with IDENTITY ids versus pooled
+ * sequence ids, reported as rows per second.
+ * <p>
+ * Runs against in-memory H2 by default; pass {@code -p jdbcUrl=jdbc:mysql://...?rewriteBatchedStatements=true}
+ * (plus {@code -p username/password}) to measure a real MySQL, where the saved round-trips matter most.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionInsertBenchmark {
+
+    static final int ROWS = 1000;
+
+    @Param({"IDENTITY", "POOLED"})
+    String idGeneration;
+
+    @Param({"0", "50"})
+    int jdbcBatchSize;
+
+    @Param({BankApplication.H2_URL})
+    String jdbcUrl;
+
+    @Param({"sa"})
+    String username;
+
+    @Param({""})
+    String password;
+
+    ConfigurableApplicationContext context;
+
+    EntityManager entityManager;
+
+    TransactionTemplate transactionTemplate;
+
+    Account account;
+
+    @Setup
+    public void setUp() {
+        context = BankApplication.start(jdbcUrl, username, password,
+                "spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize);
+
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        account = BankApplication.createAccount(context, "benchmark");
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteRows() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("delete from Transaction").executeUpdate();
+            entityManager.createQuery("delete from IdentityTransaction").executeUpdate();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insertTransactions() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Account accountReference = entityManager.getReference(Account.class, account.getId());
+            LocalDateTime now = LocalDateTime.now();
+
+            for (int i = 0; i < ROWS; i++) {
+                entityManager.persist(buildTransaction(accountReference, now));
+            }
+        });
+    }
+
+    private Object buildTransaction(Account accountReference, LocalDateTime now) {
+        if ("IDENTITY".equals(idGeneration)) {
+            IdentityTransaction transaction = new IdentityTransaction();
+            transaction.setType(TransactionType.DEPOSIT);
+            transaction.setAmount(BigDecimal.TEN);
+            transaction.setAccount(accountReference);
+            transaction.setDateTime(now);
+            return transaction;
+        }
+
+        return Transaction.builder()
+                .type(TransactionType.DEPOSIT)
+                .amount(BigDecimal.TEN)
+                .account(accountReference)
+                .dateTime(now)
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.adrian.bank.management.system.benchmark;
+
+import com.adrian.bank.management.system.entity.Account;
+import com.adrian.bank.management.system.security.JwtUtils;
+import com.adrian.bank.management.system.security.UserDetailsImpl;
+import com.adrian.bank.management.system.service.AccountService;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP load against the application on Tomcat's platform thread pool and on virtual threads.
+ * Each connection sends requests back to back: mostly balance reads, served from the account cache, and some
+ * history reads, which wait for the db. With the db slowed down the history reads occupy Tomcat's worker
+ * threads, on the platform pool the cheap balance reads then queue behind them. Not a JMH benchmark, run with
+ * <pre>
+ * java -cp target/benchmarks.jar com.adrian.bank.management.system.benchmark.VirtualThreadLoadTest \
+ *     [connections=10000] [durationSec=30] [dbLatencyMs=20] [historyPercent=10]
+ * </pre>
+ * Every connection is a socket on both ends, the open file limit has to be above twice the connections.
+ */
+public final class VirtualThreadLoadTest {
+
+    private static final int POOL_SIZE = 50;
+
+    private VirtualThreadLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int durationSec = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long dbLatencyMs = args.length > 2 ? Long.parseLong(args[2]) : 20;
+        int historyPercent = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        System.out.printf("%d connections, %d s, %d ms db latency, %d%% history reads, pool of %d connections%n",
+                connections, durationSec, dbLatencyMs, historyPercent, POOL_SIZE);
+
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            run(virtualThreads, connections, durationSec, dbLatencyMs, historyPercent);
+        }
+    }
+
+    private static void run(boolean virtualThreads, int connections, int durationSec, long dbLatencyMs,
+                            int historyPercent) throws Exception {
+        // Same pool and connection limits in both modes, only the request threads differ
+        ConfigurableApplicationContext context = BankApplication.start(
+                ctx -> ctx.getBeanFactory().addBeanPostProcessor(new DatabaseLatency(dbLatencyMs)),
+                BankApplication.H2_URL, "sa", "",
+                "bank.app.virtualThreadsEnabled=" + virtualThreads,
+                "bank.app.jwtSelfContained=true",
+                "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                "spring.datasource.hikari.connection-timeout=30000",
+                "server.tomcat.max-connections=" + (connections + 100),
+                "server.tomcat.accept-count=" + connections);
+
+        try {
+            Account account = BankApplication.createAccount(context, "load");
+            Integer userId = account.getUser().getId();
+            String token = context.getBean(JwtUtils.class).generateJwt(UserDetailsImpl.build(account.getUser()));
+
+            for (int i = 0; i < 20; i++) {
+                context.getBean(AccountService.class).deposit(account.getId(), userId, BigDecimal.TEN);
+            }
+
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+            List<Endpoint> endpoints = List.of(
+                    new Endpoint("GET /api/accounts/{id}", baseUrl + "/api/accounts/" + account.getId()),
+                    new Endpoint("GET /api/transactions/{id}/history",
+                            baseUrl + "/api/transactions/" + account.getId() + "/history"));
+
+            load(endpoints, token, connections, durationSec, historyPercent,
+                    virtualThreads ? "virtual threads" : "platform threads (Tomcat pool of 200)");
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void load(List<Endpoint> endpoints, String token, int connections, int durationSec,
+                             int historyPercent, String mode) throws Exception {
+        // First fifth of the run is warmup, its samples are dropped
+        long start = System.nanoTime();
+        long measureFrom = start + Duration.ofSeconds(durationSec).toNanos() / 5;
+        long end = start + Duration.ofSeconds(durationSec).toNanos();
+
+        List<LatencySamples> samples = new ArrayList<>();
+
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            for (int i = 0; i < connections; i++) {
+                LatencySamples connectionSamples = new LatencySamples(endpoints.size());
+                samples.add(connectionSamples);
+
+                clients.execute(() -> {
+                    while (System.nanoTime() < end) {
+                        int endpoint = ThreadLocalRandom.current().nextInt(100) < historyPercent ? 1 : 0;
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(endpoints.get(endpoint).url()))
+                                .header("Authorization", token)
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            long received = System.nanoTime();
+
+                            if (response.statusCode() != 200) {
+                                connectionSamples.error(endpoint);
+                            } else if (sent >= measureFrom && received <= end) {
+                                connectionSamples.add(endpoint, received - sent);
+                            }
+                        } catch (Exception e) {
+                            connectionSamples.error(endpoint);
+                        }
+                    }
+                });
+            }
+        }
+
+        LatencyReport.print(mode, endpoints.stream().map(Endpoint::name).toList(), samples,
+                (end - measureFrom) / 1e9);
+    }
+
+    private record Endpoint(String name, String url) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.adrian.bank.management.system.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws ids from {@code 1..size} following a Zipfian distribution - id 1 is the hottest one.
+ */
+public class ZipfianGenerator {
+
+    private final double[] cumulativeProbabilities;
+
+    public ZipfianGenerator(int size, double skew) {
+        cumulativeProbabilities = new double[size];
+
+        double sum = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            sum += 1 / Math.pow(rank, skew);
+            cumulativeProbabilities[rank - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulativeProbabilities[i] /= sum;
+        }
+    }
+
+    public int next() {
+        double value = ThreadLocalRandom.current().nextDouble();
+        int index = Arrays.binarySearch(cumulativeProbabilities, value);
+
+        return (index >= 0 ? index : -index - 1) + 1;
+    }
+}
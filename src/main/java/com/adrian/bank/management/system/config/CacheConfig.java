@@ -0,0 +1,38 @@
+package com.adrian.bank.management.system.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+// Outermost advice, so cache hits don't open a transaction
+@Configuration
+@EnableCaching(proxyTargetClass = true, order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    public static final String PRINCIPALS = "principals";
+
+    // Evictions are deferred until the surrounding transaction commits, so a request running before the commit
+    // can't put the old row back. One that read the old row before the commit and puts it after the eviction
+    // still can, such a stale principal is bounded by the ttl.
+    @Bean
+    public CacheManager cacheManager(@Value("${bank.app.principalCacheMaxSize}") long principalCacheMaxSize,
+                                     @Value("${bank.app.principalCacheTtlSec}") long principalCacheTtlSec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
+        cacheManager.registerCustomCache(PRINCIPALS, Caffeine.newBuilder()
+                .maximumSize(principalCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(principalCacheTtlSec))
+                .recordStats()
+                .build());
+
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
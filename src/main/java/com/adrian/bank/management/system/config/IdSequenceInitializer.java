@@ -0,0 +1,68 @@
+package com.adrian.bank.management.system.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the id sequences of users, accounts and transactions past the highest existing ids. These ids came from
+ * auto increment columns before, on an existing db {@code ddl-auto} creates the sequences starting at 1 and the
+ * first inserts would collide with existing rows. Runs on every startup, after the schema update and before the
+ * web server takes requests. A sequence is never moved back, so it is a no-op once the sequences are ahead.
+ * <p>
+ * Hibernate emulates sequences on MySQL with a single row table, other dbs got their sequences together with
+ * their tables and are skipped.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceInitializer {
+
+    // Ids are handed out in blocks of this size, see the entities
+    static final int ALLOCATION_SIZE = 50;
+
+    // table -> sequence
+    static final Map<String, String> SEQUENCES = Map.of(
+            "user", "user_seq",
+            "account", "account_seq",
+            "transaction", "transaction_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+
+        if (!"MySQL".equalsIgnoreCase(database)) {
+            return;
+        }
+
+        SEQUENCES.forEach(this::advance);
+    }
+
+    void advance(String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+
+        // The next block allocated has to start above the existing ids
+        long nextValue = maxId + 1 + ALLOCATION_SIZE;
+        int updated = jdbcTemplate.update(
+                "update " + sequence + " set next_val = ? where next_val < ?", nextValue, nextValue);
+
+        if (updated > 0) {
+            log.info("Moved {} to {}, past the highest id of {}", sequence, nextValue, table);
+        }
+    }
+}
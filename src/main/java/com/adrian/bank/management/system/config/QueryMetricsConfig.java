@@ -0,0 +1,27 @@
+package com.adrian.bank.management.system.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class QueryMetricsConfig {
+
+    // Static, post processors are created before the rest of the configuration
+    @Bean
+    public static BeanPostProcessor queryMetricsDataSourcePostProcessor(
+            @Value("${bank.app.slowStatementMs}") long slowStatementMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof QueryMetricsDataSource)) {
+                    return new QueryMetricsDataSource(dataSource, slowStatementMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package com.adrian.bank.management.system.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every statement executed through the pool and adds it to the {@link QueryStats} of the current request.
+ * A batch counts as one statement, it is one round trip. Statements slower than the threshold are logged with
+ * their sql. Pool beans stay reachable through {@link #unwrap}, pool metrics keep working.
+ */
+@Slf4j
+public class QueryMetricsDataSource extends DelegatingDataSource {
+
+    private final long slowStatementNanos;
+
+    public QueryMetricsDataSource(DataSource targetDataSource, long slowStatementMs) {
+        super(targetDataSource);
+        this.slowStatementNanos = TimeUnit.MILLISECONDS.toNanos(slowStatementMs);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxyConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxyConnection(super.getConnection(username, password));
+    }
+
+    private Connection proxyConnection(Connection connection) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result = invoke(method, connection, args);
+
+            // prepareStatement(sql, ...) and prepareCall(sql, ...) - the sql is known before execution
+            if (result instanceof CallableStatement statement) {
+                return proxyStatement(CallableStatement.class, statement, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return proxyStatement(PreparedStatement.class, statement, (String) args[0]);
+            }
+            if (result instanceof Statement statement) {
+                return proxyStatement(Statement.class, statement, null);
+            }
+            return result;
+        };
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private <T extends Statement> T proxyStatement(Class<T> type, T statement, String preparedSql) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(method, statement, args);
+            }
+
+            // Plain statements get the sql with execute, batches of them have none
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String executed ? executed
+                    : "batch";
+
+            long start = System.nanoTime();
+            try {
+                return invoke(method, statement, args);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                QueryStats.record(sql, elapsed);
+
+                if (elapsed > slowStatementNanos) {
+                    log.warn("Slow statement took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(elapsed), sql);
+                }
+            }
+        };
+
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
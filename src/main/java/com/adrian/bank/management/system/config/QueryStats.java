@@ -0,0 +1,55 @@
+package com.adrian.bank.management.system.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Statements executed by the current request and the time they took, collected by {@link QueryMetricsDataSource}.
+ * Only threads inside {@link #start()} / {@link #end()} collect anything, statements of background work and of
+ * the login pool are not counted.
+ */
+final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private long jdbcNanos;
+
+    // sql -> executions, the same sql executed again and again is an N+1 suspect
+    private final Map<String, Integer> executions = new HashMap<>();
+
+    private QueryStats() {
+    }
+
+    static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static void record(String sql, long nanos) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.jdbcNanos += nanos;
+            stats.executions.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    int statements() {
+        return statements;
+    }
+
+    long jdbcNanos() {
+        return jdbcNanos;
+    }
+
+    Map<String, Integer> executions() {
+        return executions;
+    }
+}
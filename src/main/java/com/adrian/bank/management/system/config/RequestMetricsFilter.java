@@ -0,0 +1,173 @@
+package com.adrian.bank.management.system.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the statements each request executes and their jdbc time, tagged like {@code http.server.requests}
+ * with method and uri template: {@code bank.request.statements} and {@code bank.request.db}, the db share of
+ * an endpoint is {@code bank.request.db / http.server.requests}.
+ * <p>
+ * A request executing more statements than the budget is logged and counted in
+ * {@code bank.request.budget.exceeded}. The same sql executed repeatedly in one request is logged as an N+1
+ * suspect and counted in {@code bank.request.repeated.statements}. Outside prod the counts are also returned in
+ * the {@value #QUERY_COUNT_HEADER} and {@value #QUERY_TIME_HEADER} headers, as of when the response was
+ * committed.
+ * <p>
+ * Logins load users on the login pool, their statements are not counted here. Statements are seen through the
+ * {@link QueryMetricsDataSource} proxy. Counts and timings are recorded in every profile, only the headers can be
+ * switched off.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int queryBudget;
+
+    private final int repeatThreshold;
+
+    private final boolean headersEnabled;
+
+    // uri template -> http method -> meters, looked up without building a key per request
+    private final Map<String, Map<String, EndpointMeters>> meters = new ConcurrentHashMap<>();
+
+    public RequestMetricsFilter(MeterRegistry meterRegistry,
+                                @Value("${bank.app.queryBudget}") int queryBudget,
+                                @Value("${bank.app.queryRepeatThreshold}") int repeatThreshold,
+                                @Value("${bank.app.queryHeadersEnabled}") boolean headersEnabled) {
+        this.meterRegistry = meterRegistry;
+        this.queryBudget = queryBudget;
+        this.repeatThreshold = repeatThreshold;
+        this.headersEnabled = headersEnabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryStats stats = QueryStats.start();
+        try {
+            filterChain.doFilter(request, headersEnabled ? new QueryHeadersResponse(response, stats) : response);
+
+            // Bodiless responses are committed by the container after the chain
+            if (headersEnabled && !response.isCommitted()) {
+                addHeaders(response, stats);
+            }
+        } finally {
+            QueryStats.end();
+
+            // Requests not mapped to a controller have no template, they are left out
+            if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String uri) {
+                record(request.getMethod(), uri, stats);
+            }
+        }
+    }
+
+    private void record(String method, String uri, QueryStats stats) {
+        EndpointMeters endpointMeters = meters(method, uri);
+        endpointMeters.statements().record(stats.statements());
+        endpointMeters.db().record(stats.jdbcNanos(), TimeUnit.NANOSECONDS);
+
+        if (stats.statements() > queryBudget) {
+            endpointMeters.budgetExceeded().increment();
+            log.warn("{} {} executed {} statements in {} ms, budget is {}", method, uri, stats.statements(),
+                    TimeUnit.NANOSECONDS.toMillis(stats.jdbcNanos()), queryBudget);
+        }
+
+        for (Map.Entry<String, Integer> execution : stats.executions().entrySet()) {
+            if (execution.getValue() >= repeatThreshold) {
+                endpointMeters.repeatedStatements().increment();
+                log.warn("N+1 suspect: {} {} executed the same statement {} times: {}", method, uri,
+                        execution.getValue(), execution.getKey());
+            }
+        }
+    }
+
+    private static void addHeaders(HttpServletResponse response, QueryStats stats) {
+        response.setHeader(QUERY_COUNT_HEADER, String.valueOf(stats.statements()));
+        response.setHeader(QUERY_TIME_HEADER, String.valueOf(TimeUnit.NANOSECONDS.toMillis(stats.jdbcNanos())));
+    }
+
+    private EndpointMeters meters(String method, String uri) {
+        Map<String, EndpointMeters> methodMeters = meters.get(uri);
+        EndpointMeters endpointMeters = methodMeters == null ? null : methodMeters.get(method);
+        if (endpointMeters != null) {
+            return endpointMeters;
+        }
+
+        return meters.computeIfAbsent(uri, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, key -> new EndpointMeters(
+                        DistributionSummary.builder("bank.request.statements")
+                                .description("Statements executed by a request")
+                                .tag("method", method)
+                                .tag("uri", uri)
+                                .publishPercentileHistogram()
+                                .minimumExpectedValue(1.0)
+                                .maximumExpectedValue(1000.0)
+                                .register(meterRegistry),
+                        Timer.builder("bank.request.db")
+                                .description("Time a request spent executing db statements")
+                                .tag("method", method)
+                                .tag("uri", uri)
+                                .publishPercentileHistogram()
+                                .minimumExpectedValue(Duration.ofMillis(1))
+                                .maximumExpectedValue(Duration.ofSeconds(10))
+                                .register(meterRegistry),
+                        Counter.builder("bank.request.budget.exceeded")
+                                .description("Requests executing more statements than the query budget")
+                                .tag("method", method)
+                                .tag("uri", uri)
+                                .register(meterRegistry),
+                        Counter.builder("bank.request.repeated.statements")
+                                .description("Statements executed repeatedly in one request, N+1 suspects")
+                                .tag("method", method)
+                                .tag("uri", uri)
+                                .register(meterRegistry)));
+    }
+
+    private record EndpointMeters(DistributionSummary statements, Timer db, Counter budgetExceeded,
+                                  Counter repeatedStatements) {
+    }
+
+    // Headers have to be set before the first byte of the body goes out
+    private static final class QueryHeadersResponse extends OnCommittedResponseWrapper {
+
+        private final QueryStats stats;
+
+        QueryHeadersResponse(HttpServletResponse response, QueryStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            addHeaders(this, stats);
+        }
+    }
+}
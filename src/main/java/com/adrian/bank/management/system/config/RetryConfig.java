@@ -0,0 +1,28 @@
+package com.adrian.bank.management.system.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.retry.annotation.RetryConfiguration;
+
+@Configuration
+@EnableRetry
+public class RetryConfig {
+
+    // Retry and transaction advisors both default to the lowest precedence. Retry has to be the outer one,
+    // otherwise every attempt would run in the same, already failed transaction.
+    @Bean
+    public static BeanPostProcessor retryAdvisorOrderPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RetryConfiguration retryConfiguration) {
+                    retryConfiguration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.adrian.bank.management.system.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.interceptor.MethodInvocationRetryCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts operations, optimistic locking conflicts and exhausted retries per operation label.
+ * Conflict rate is {@code conflicts / operations}, retries are {@code conflicts - exhausted}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RetryMetricsListener implements RetryListener {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
+        counter("bank.account.operations", context, callback).increment();
+        return true;
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+                                                 Throwable throwable) {
+        if (throwable instanceof OptimisticLockingFailureException) {
+            counter("bank.account.conflicts", context, callback).increment();
+        }
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
+                                               Throwable throwable) {
+        if (throwable instanceof OptimisticLockingFailureException) {
+            counter("bank.account.retries.exhausted", context, callback).increment();
+        }
+    }
+
+    private Counter counter(String name, RetryContext context, RetryCallback<?, ?> callback) {
+        String operation = callback instanceof MethodInvocationRetryCallback<?, ?> methodCallback
+                ? methodCallback.getLabel()
+                : String.valueOf(context.getAttribute(RetryContext.NAME));
+
+        return counters.computeIfAbsent(name + ":" + operation, key -> Counter.builder(name)
+                .tag("operation", operation)
+                .register(meterRegistry));
+    }
+}
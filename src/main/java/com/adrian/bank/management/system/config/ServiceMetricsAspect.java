@@ -0,0 +1,145 @@
+package com.adrian.bank.management.system.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import com.adrian.bank.management.system.service.InsufficientFundsException;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public service method in {@code bank.service}, tagged with class, method and outcome. Money
+ * movements - the methods with a {@link Retryable} label - also count their results in
+ * {@code bank.account.outcomes}, tagged with the label and success, insufficient_funds, rejected, not_found,
+ * conflict or error.
+ * <p>
+ * Runs outside the retry and transaction advice, so the time includes every attempt and the commit. Meters are
+ * created once per method, recording allocates nothing.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.adrian.bank.management.system.service.*Service.*(..))"
+            + " || execution(public * com.adrian.bank.management.system.security.LoginService.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodMeters methodMeters = meters.get(method);
+        if (methodMeters == null) {
+            methodMeters = meters.computeIfAbsent(method, key -> createMeters(joinPoint, key));
+        }
+
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+
+            methodMeters.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            methodMeters.count(Outcome.SUCCESS);
+
+            return result;
+        } catch (Throwable e) {
+            methodMeters.error().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            methodMeters.count(Outcome.of(e));
+
+            throw e;
+        }
+    }
+
+    private MethodMeters createMeters(ProceedingJoinPoint joinPoint, Method method) {
+        String className = joinPoint.getTarget().getClass().getSimpleName();
+
+        Retryable retryable = method.getAnnotation(Retryable.class);
+        Counter[] outcomes = null;
+        if (retryable != null && !retryable.label().isEmpty()) {
+            outcomes = new Counter[Outcome.values().length];
+            for (Outcome outcome : Outcome.values()) {
+                outcomes[outcome.ordinal()] = Counter.builder("bank.account.outcomes")
+                        .description("Results of money movements")
+                        .tag("operation", retryable.label())
+                        .tag("outcome", outcome.tag)
+                        .register(meterRegistry);
+            }
+        }
+
+        return new MethodMeters(timer(className, method.getName(), "success"),
+                timer(className, method.getName(), "error"), outcomes);
+    }
+
+    private Timer timer(String className, String methodName, String outcome) {
+        return Timer.builder("bank.service")
+                .description("Time spent in service methods")
+                .tag("class", className)
+                .tag("method", methodName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+    private record MethodMeters(Timer success, Timer error, Counter[] outcomes) {
+
+        void count(Outcome outcome) {
+            if (outcomes != null) {
+                outcomes[outcome.ordinal()].increment();
+            }
+        }
+    }
+
+    private enum Outcome {
+        SUCCESS("success"),
+        INSUFFICIENT_FUNDS("insufficient_funds"),
+        REJECTED("rejected"),
+        NOT_FOUND("not_found"),
+        CONFLICT("conflict"),
+        ERROR("error");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+
+        // A missing balance has its own exception, any other 400 is a rejected request. Unknown or foreign accounts
+        // are answered with 404
+        static Outcome of(Throwable e) {
+            if (e instanceof InsufficientFundsException) {
+                return INSUFFICIENT_FUNDS;
+            }
+            if (e instanceof ResponseStatusException statusException) {
+                if (statusException.getStatusCode().value() == HttpStatus.BAD_REQUEST.value()) {
+                    return REJECTED;
+                }
+                if (statusException.getStatusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                    return NOT_FOUND;
+                }
+            }
+            if (e instanceof OptimisticLockingFailureException) {
+                return CONFLICT;
+            }
+            return ERROR;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.adrian.bank.management.system.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepared statement counters of the MySQL server, polled from {@code SHOW GLOBAL STATUS}. With
+ * {@code cachePrepStmts} and {@code useServerPrepStmts} a statement found in the driver's cache is executed
+ * without being prepared again, the hit ratio of the last interval is {@code 1 - prepares / executions}.
+ * The counters are server-wide, they include other clients of the same server.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bank.app.statementCacheMetricsEnabled", havingValue = "true")
+public class StatementCacheMetrics {
+
+    static final String STATUS_QUERY = "SHOW GLOBAL STATUS WHERE Variable_name IN "
+            + "('Com_stmt_prepare', 'Com_stmt_execute', 'Com_stmt_reprepare', 'Prepared_stmt_count')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final long intervalSec;
+
+    private final ScheduledExecutorService poller;
+
+    private volatile Map<String, Long> status = Map.of();
+
+    private volatile double hitRatio = Double.NaN;
+
+    public StatementCacheMetrics(JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${bank.app.statementCacheMetricsIntervalSec}") long intervalSec) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.intervalSec = intervalSec;
+        this.poller = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("statement-metrics-"));
+
+        FunctionCounter.builder("bank.db.statements.prepared", this, metrics -> metrics.value("Com_stmt_prepare"))
+                .description("Statements prepared by the db server")
+                .register(meterRegistry);
+        FunctionCounter.builder("bank.db.statements.executed", this, metrics -> metrics.value("Com_stmt_execute"))
+                .description("Prepared statements executed by the db server")
+                .register(meterRegistry);
+        FunctionCounter.builder("bank.db.statements.reprepared", this,
+                        metrics -> metrics.value("Com_stmt_reprepare"))
+                .description("Prepared statements the db server prepared again after a schema change")
+                .register(meterRegistry);
+        Gauge.builder("bank.db.statements.open", this, metrics -> metrics.value("Prepared_stmt_count"))
+                .description("Prepared statements currently held by the db server")
+                .register(meterRegistry);
+        Gauge.builder("bank.db.statement.cache.hit.ratio", this, StatementCacheMetrics::hitRatio)
+                .description("Share of prepared statement executions in the last interval that needed no prepare")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        poller.scheduleWithFixedDelay(this::refresh, 0, intervalSec, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdown();
+    }
+
+    void refresh() {
+        try {
+            Map<String, Long> current = new HashMap<>();
+            jdbcTemplate.query(STATUS_QUERY, row -> {
+                current.put(row.getString(1), row.getLong(2));
+            });
+            update(current);
+        } catch (RuntimeException e) {
+            log.warn("Reading prepared statement counters failed", e);
+        }
+    }
+
+    void update(Map<String, Long> current) {
+        Map<String, Long> previous = status;
+
+        if (!previous.isEmpty()) {
+            long executed = delta(previous, current, "Com_stmt_execute");
+            long prepared = delta(previous, current, "Com_stmt_prepare");
+
+            // No executions in the interval, the last ratio is kept
+            if (executed > 0) {
+                hitRatio = Math.max(0, 1 - (double) prepared / executed);
+            }
+        }
+
+        status = current;
+    }
+
+    double value(String variable) {
+        return status.getOrDefault(variable, 0L);
+    }
+
+    double hitRatio() {
+        return hitRatio;
+    }
+
+    private static long delta(Map<String, Long> previous, Map<String, Long> current, String variable) {
+        return current.getOrDefault(variable, 0L) - previous.getOrDefault(variable, 0L);
+    }
+}
@@ -0,0 +1,30 @@
+package com.adrian.bank.management.system.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+// Every request runs on its own virtual thread instead of Tomcat's pool of platform threads. A thread blocked
+// on JDBC no longer holds a worker, concurrent db work is limited by the connection pool alone.
+@Configuration
+@ConditionalOnProperty(name = "bank.app.virtualThreadsEnabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadExecutorCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry,
+            @Value("${bank.app.virtualThreadPinnedThresholdMs}") long pinnedThresholdMs) {
+        return new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(pinnedThresholdMs));
+    }
+}
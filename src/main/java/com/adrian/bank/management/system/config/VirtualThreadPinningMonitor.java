@@ -0,0 +1,84 @@
+package com.adrian.bank.management.system.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that blocked while pinned to their carrier thread - inside a {@code synchronized}
+ * block or a native frame - for longer than the threshold. Pinned threads block the carrier, with enough of
+ * them the whole scheduler stalls. Events come from JFR, each call site is logged with its stack trace once
+ * and counted in {@code bank.virtual.pinned}, tagged with the first frame outside the JDK.
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final int LOGGED_FRAMES = 20;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Duration threshold;
+
+    private final Set<String> loggedSites = ConcurrentHashMap.newKeySet();
+
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry, Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        recordingStream.close();
+    }
+
+    void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String site = frames.stream()
+                .map(VirtualThreadPinningMonitor::frameName)
+                .filter(frame -> !frame.startsWith("java.") && !frame.startsWith("jdk."))
+                .findFirst()
+                .orElse("unknown");
+
+        Timer.builder("bank.virtual.pinned")
+                .description("Virtual threads blocked while pinned to the carrier thread")
+                .tag("site", site)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        // Full stack once per call site, later events are only counted
+        if (loggedSites.add(site)) {
+            log.warn("Virtual thread pinned for {} ms at {}:\n\t{}", event.getDuration().toMillis(), site,
+                    frames.stream()
+                            .limit(LOGGED_FRAMES)
+                            .map(frame -> frameName(frame) + ":" + frame.getLineNumber())
+                            .collect(Collectors.joining("\n\t")));
+        }
+    }
+
+    private static String frameName(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+}
@@ -1,9 +1,14 @@
 package com.adrian.bank.management.system.controller;
 
 import com.adrian.bank.management.system.dto.AccountInformation;
+import com.adrian.bank.management.system.dto.BatchTransferRequest;
+import com.adrian.bank.management.system.dto.BatchTransferResult;
 import com.adrian.bank.management.system.dto.TransferRequest;
 import com.adrian.bank.management.system.security.AuthenticationFacade;
 import com.adrian.bank.management.system.service.AccountService;
+import com.adrian.bank.management.system.service.BatchTransferService;
+import com.adrian.bank.management.system.service.IdempotencyService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -12,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/accounts")
@@ -20,51 +26,90 @@ public class AccountController {
 
     private final AccountService accountService;
 
+    private final BatchTransferService batchTransferService;
+
+    private final IdempotencyService idempotencyService;
+
     private final AuthenticationFacade authFacade;
 
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/{accountId}")
     @ResponseStatus(HttpStatus.OK)
     public AccountInformation getAccountInformation(@PathVariable Integer accountId) {
-        String username = authFacade.getAuthentication().getName();
+        Integer userId = authFacade.getUserId();
 
-        return accountService.getAccount(username, accountId);
+        return accountService.getAccount(userId, accountId);
     }
 
     @PreAuthorize("isAuthenticated()")
     @PatchMapping("/{accountId}/transfer")
     @ResponseStatus(HttpStatus.OK)
-    public void makeTransfer(@PathVariable Integer accountId, @Valid @RequestBody TransferRequest transfer) {
-        String username = authFacade.getAuthentication().getName();
+    public void makeTransfer(@PathVariable Integer accountId, @Valid @RequestBody TransferRequest transfer,
+                             @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                             HttpServletResponse response) {
+        Integer userId = authFacade.getUserId();
 
-        accountService.makeTransfer(username, accountId, transfer);
+        boolean replayed = idempotencyService.execute(userId, idempotencyKey,
+                IdempotencyService.fingerprint("transfer", accountId, transfer.accountIdTarget(), transfer.value()),
+                () -> accountService.makeTransfer(userId, accountId, transfer));
+
+        markReplayed(response, replayed);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/{accountId}/transfers/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<BatchTransferResult> makeBatchTransfer(@PathVariable Integer accountId,
+                                                       @Valid @RequestBody BatchTransferRequest batch) {
+        Integer userId = authFacade.getUserId();
+
+        return batchTransferService.makeBatchTransfer(userId, accountId, batch);
     }
 
     @PreAuthorize("isAuthenticated()")
     @PatchMapping("/{accountId}/withdraw")
     @ResponseStatus(HttpStatus.OK)
-    public void withdraw(@PathVariable Integer accountId, @RequestParam BigDecimal amount) {
+    public void withdraw(@PathVariable Integer accountId, @RequestParam BigDecimal amount,
+                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                         HttpServletResponse response) {
         if (!(amount.compareTo(BigDecimal.valueOf(0)) > 0)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Amount has to be positive");
         }
 
-        String username = authFacade.getAuthentication().getName();
+        Integer userId = authFacade.getUserId();
+
+        boolean replayed = idempotencyService.execute(userId, idempotencyKey,
+                IdempotencyService.fingerprint("withdraw", accountId, amount),
+                () -> accountService.withdraw(accountId, userId, amount));
 
-        accountService.withdraw(accountId, username, amount);
+        markReplayed(response, replayed);
     }
 
     @PreAuthorize("isAuthenticated()")
     @PatchMapping("/{accountId}/deposit")
     @ResponseStatus(HttpStatus.OK)
-    public void deposit(@PathVariable Integer accountId, @RequestParam Integer amount) {
+    public void deposit(@PathVariable Integer accountId, @RequestParam Integer amount,
+                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                        HttpServletResponse response) {
         if (amount <= 0) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Amount has to be positive");
         }
 
-        String username = authFacade.getAuthentication().getName();
+        Integer userId = authFacade.getUserId();
+
+        boolean replayed = idempotencyService.execute(userId, idempotencyKey,
+                IdempotencyService.fingerprint("deposit", accountId, amount),
+                () -> accountService.deposit(accountId, userId, BigDecimal.valueOf(amount)));
 
-        accountService.deposit(accountId, username, BigDecimal.valueOf(amount));
+        markReplayed(response, replayed);
+    }
+
+    // Replays get the same status and body as the original request, the header tells them apart
+    private void markReplayed(HttpServletResponse response, boolean replayed) {
+        if (replayed) {
+            response.setHeader("Idempotent-Replayed", "true");
+        }
     }
 }
@@ -1,20 +1,31 @@
 package com.adrian.bank.management.system.controller;
 
+import com.adrian.bank.management.system.dto.ExportFormat;
 import com.adrian.bank.management.system.dto.TransactionDTO;
+import com.adrian.bank.management.system.dto.TransactionHistoryPage;
 import com.adrian.bank.management.system.security.AuthenticationFacade;
 import com.adrian.bank.management.system.service.TransactionService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequestMapping("/api/transactions/{accountId}")
 @RequiredArgsConstructor
 public class TransactionController {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final AuthenticationFacade authFacade;
 
     private final TransactionService transactionService;
@@ -23,8 +34,44 @@ public class TransactionController {
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
     public Page<TransactionDTO> getPersonalHistoryOfTransactions(@PathVariable Integer accountId, Pageable pageable) {
-        String username = authFacade.getAuthentication().getName();
+        Integer userId = authFacade.getUserId();
+
+        return transactionService.getTransactionsForUserAccount(userId, accountId, pageable);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/history")
+    @ResponseStatus(HttpStatus.OK)
+    public TransactionHistoryPage getTransactionHistory(@PathVariable Integer accountId,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Size has to be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
+
+        Integer userId = authFacade.getUserId();
+
+        return transactionService.getTransactionHistory(userId, accountId, cursor, size);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/export")
+    public void exportTransactions(@PathVariable Integer accountId,
+                                   @RequestParam(defaultValue = "ndjson") String format,
+                                   HttpServletResponse response) throws IOException {
+        Integer userId = authFacade.getUserId();
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("transactions-" + accountId + "." + exportFormat.getFileExtension())
+                .build()
+                .toString());
 
-        return transactionService.getTransactionsForUserAccount(username, accountId, pageable);
+        // Closed by the service once the export is written or failed
+        transactionService.exportTransactions(userId, accountId, exportFormat, response.getOutputStream());
     }
 }
@@ -0,0 +1,5 @@
+package com.adrian.bank.management.system.dto;
+
+public enum BatchTransferMode {
+    ALL_OR_NOTHING, BEST_EFFORT
+}
@@ -0,0 +1,14 @@
+package com.adrian.bank.management.system.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchTransferRequest(@NotEmpty(message = "You have to pass at least one transfer")
+                                   @Size(max = 10000, message = "Batch can contain at most 10000 transfers")
+                                   List<@Valid @NotNull TransferRequest> transfers,
+                                   @NotNull(message = "Batch mode is required") BatchTransferMode mode) {
+}
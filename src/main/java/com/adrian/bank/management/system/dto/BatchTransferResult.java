@@ -0,0 +1,9 @@
+package com.adrian.bank.management.system.dto;
+
+import java.math.BigDecimal;
+
+public record BatchTransferResult(int index,
+                                  Integer accountIdTarget,
+                                  BigDecimal value,
+                                  BatchTransferStatus status) {
+}
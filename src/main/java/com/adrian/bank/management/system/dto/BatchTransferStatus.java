@@ -0,0 +1,5 @@
+package com.adrian.bank.management.system.dto;
+
+public enum BatchTransferStatus {
+    COMPLETED, INSUFFICIENT_FUNDS, RECEIVER_NOT_FOUND, SAME_ACCOUNT, FAILED, ABORTED
+}
@@ -0,0 +1,36 @@
+package com.adrian.bank.management.system.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last transaction on a history page. Clients get it as an opaque token and send it back
+ * to get the next page.
+ */
+public record TransactionCursor(LocalDateTime dateTime, Integer id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String cursor = dateTime + SEPARATOR + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String cursor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = cursor.lastIndexOf(SEPARATOR);
+
+            return new TransactionCursor(LocalDateTime.parse(cursor.substring(0, separatorIndex)),
+                    Integer.valueOf(cursor.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.adrian.bank.management.system.dto;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record TransactionHistoryPage(List<TransactionDTO> transactions,
+                                     String nextCursor) {
+}
@@ -16,7 +16,8 @@ import java.time.LocalDate;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     private Integer id;
 
     @CreatedDate
@@ -24,6 +25,9 @@ public class Account {
 
     private BigDecimal balance;
 
+    @Version
+    private long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
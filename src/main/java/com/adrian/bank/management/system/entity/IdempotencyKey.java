@@ -0,0 +1,36 @@
+package com.adrian.bank.management.system.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// Inserted in the same transaction as the balance change, so a key is stored exactly when its operation committed
+@Entity
+@Table(name = "idempotency_key", indexes = @Index(name = "idx_idempotency_key_created_at", columnList = "created_at"))
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IdempotencyKey implements Persistable<String> {
+
+    // User id and the client's key, keys of different users never collide
+    @Id
+    @Column(length = 80)
+    private String id;
+
+    // Operation and its parameters, a key can't be reused for a different request
+    @Column(length = 200)
+    private String fingerprint;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Keys are only ever inserted, save() persists without selecting the row first
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
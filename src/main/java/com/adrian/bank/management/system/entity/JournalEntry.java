@@ -0,0 +1,40 @@
+package com.adrian.bank.management.system.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Outbox row of a transaction not yet written to the transaction table. No foreign key and no secondary index,
+// so the insert in the request transaction stays cheap
+@Entity
+@Table(name = "transaction_journal")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class JournalEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_journal_seq")
+    @SequenceGenerator(name = "transaction_journal_seq", sequenceName = "transaction_journal_seq", allocationSize = 50)
+    private Long id;
+
+    private Integer accountId;
+
+    @Column(name = "date_time")
+    private LocalDateTime dateTime;
+
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType type;
+
+    @Column(length = 36)
+    private String transferId;
+
+    // Failed moves of this entry, it is left in the outbox once the journal gives up on it
+    private int attempts;
+}
@@ -6,8 +6,14 @@ import org.springframework.data.annotation.CreatedDate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_transaction_account_date_time_id", columnList = "account_id, date_time, id"),
+        @Index(name = "idx_transaction_transfer_id", columnList = "transfer_id")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -15,11 +21,14 @@ import java.time.LocalDateTime;
 @Builder
 public class Transaction {
 
+    // Ids are allocated in blocks, so inserts can go to the db in JDBC batches (on MySQL the sequence is a table)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     private Integer id;
 
     @CreatedDate
+    @Column(name = "date_time")
     private LocalDateTime dateTime;
 
     private BigDecimal amount;
@@ -29,4 +38,30 @@ public class Transaction {
 
     @ManyToOne(fetch = FetchType.LAZY)
     private Account account;
+
+    // Both legs of a transfer share it, null for deposits and withdrawals
+    @Column(name = "transfer_id", length = 36)
+    private String transferId;
+
+    // Sender's leg and receiver's leg of one transfer, linked by a new transfer id
+    public static List<Transaction> transferLegs(Account sender, Account receiver, BigDecimal amount,
+                                                 LocalDateTime dateTime) {
+        String transferId = UUID.randomUUID().toString();
+
+        return List.of(
+                Transaction.builder()
+                        .type(TransactionType.TRANSFER)
+                        .amount(amount)
+                        .account(sender)
+                        .dateTime(dateTime)
+                        .transferId(transferId)
+                        .build(),
+                Transaction.builder()
+                        .type(TransactionType.INCOMING_TRANSFER)
+                        .amount(amount)
+                        .account(receiver)
+                        .dateTime(dateTime)
+                        .transferId(transferId)
+                        .build());
+    }
 }
@@ -1,5 +1,6 @@
 package com.adrian.bank.management.system.entity;
 
 public enum TransactionType {
-    TRANSFER, WITHDRAW, DEPOSIT
+    // TRANSFER is the sender's leg of a transfer, INCOMING_TRANSFER the receiver's
+    TRANSFER, INCOMING_TRANSFER, WITHDRAW, DEPOSIT
 }
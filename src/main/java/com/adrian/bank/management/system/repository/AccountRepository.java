@@ -1,11 +1,54 @@
 package com.adrian.bank.management.system.repository;
 
 import com.adrian.bank.management.system.entity.Account;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Integer> {
 
-    Optional<Account> findByIdAndUserUsername(Integer accountId, String username);
+    // a.user.id is the user_id column of account, neither query joins the user table
+    @Query("select a from Account a where a.id = :accountId and a.user.id = :userId")
+    Optional<Account> findByIdAndUserId(@Param("accountId") Integer accountId, @Param("userId") Integer userId);
+
+    @Query("select a.user.id from Account a where a.id = :accountId")
+    Optional<Integer> findOwnerId(@Param("accountId") Integer accountId);
+
+    @Query("select a.id from Account a where a.id in :accountIds")
+    List<Integer> findExistingIds(@Param("accountIds") Collection<Integer> accountIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id = :accountId")
+    Optional<Account> findByIdForUpdate(@Param("accountId") Integer accountId);
+
+    // Rows are locked in ascending id order, the same order AccountLockManager uses
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id in :accountIds order by a.id")
+    List<Account> findAllByIdForUpdate(@Param("accountIds") Collection<Integer> accountIds);
+
+    // Conditional balance updates, each returns number of updated rows - 0 when the condition doesn't hold
+
+    @Modifying
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1 " +
+            "where a.id = :accountId and a.balance >= :amount and a.user.id = :userId")
+    int debit(@Param("accountId") Integer accountId, @Param("userId") Integer userId,
+              @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1 " +
+            "where a.id = :accountId and a.user.id = :userId")
+    int credit(@Param("accountId") Integer accountId, @Param("userId") Integer userId,
+               @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1 where a.id = :accountId")
+    int credit(@Param("accountId") Integer accountId, @Param("amount") BigDecimal amount);
 }
@@ -0,0 +1,31 @@
+package com.adrian.bank.management.system.repository;
+
+import com.adrian.bank.management.system.entity.JournalEntry;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long> {
+
+    // Oldest entries first. Rows locked by a writer on another node are skipped (lock timeout -2 is SKIP LOCKED),
+    // so each entry is moved exactly once. Entries the journal gave up on are left out
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from JournalEntry e where e.attempts < :maxAttempts order by e.id")
+    List<JournalEntry> findOldestForUpdate(@Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from JournalEntry e where e.id = :id and e.attempts < :maxAttempts")
+    Optional<JournalEntry> findByIdForUpdate(@Param("id") Long id, @Param("maxAttempts") int maxAttempts);
+
+    long countByAttemptsLessThan(int maxAttempts);
+}
@@ -1,11 +1,61 @@
 package com.adrian.bank.management.system.repository;
 
+import com.adrian.bank.management.system.dto.TransactionDTO;
 import com.adrian.bank.management.system.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
 
-    Page<Transaction> findByAccount_IdAndAccount_User_Username(Integer accountId, String username, Pageable pageable);
+    // History queries select dto objects directly: no entities are hydrated, no account proxies are created
+    // and the persistence context stays empty. Account ownership is checked before, by AccountOwnershipCache,
+    // so the queries read only the transaction table. A transfer stores one leg per account, so incoming and
+    // outgoing transfers come from the same (account_id, date_time, id) index range, without a union.
+    @Query(value = """
+            select new com.adrian.bank.management.system.dto.TransactionDTO(t.id, t.dateTime, t.amount, t.type)
+            from Transaction t
+            where t.account.id = :accountId""",
+            countQuery = """
+            select count(t) from Transaction t
+            where t.account.id = :accountId""")
+    Page<TransactionDTO> findPageByAccount(@Param("accountId") Integer accountId, Pageable pageable);
+
+    // Keyset pagination, newest first. Both queries read the (account_id, date_time, id) index in order
+    // and stop after the requested number of rows, without counting all rows.
+    @Query("""
+            select new com.adrian.bank.management.system.dto.TransactionDTO(t.id, t.dateTime, t.amount, t.type)
+            from Transaction t
+            where t.account.id = :accountId
+            order by t.dateTime desc, t.id desc""")
+    List<TransactionDTO> findFirstHistoryPage(@Param("accountId") Integer accountId, Pageable pageable);
+
+    // Fetch size makes the driver read rows in chunks instead of loading the whole result.
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.adrian.bank.management.system.dto.TransactionDTO(t.id, t.dateTime, t.amount, t.type)
+            from Transaction t
+            where t.account.id = :accountId
+            order by t.dateTime, t.id""")
+    Stream<TransactionDTO> streamAllForExport(@Param("accountId") Integer accountId);
+
+    @Query("""
+            select new com.adrian.bank.management.system.dto.TransactionDTO(t.id, t.dateTime, t.amount, t.type)
+            from Transaction t
+            where t.account.id = :accountId
+            and (t.dateTime < :dateTime or (t.dateTime = :dateTime and t.id < :id))
+            order by t.dateTime desc, t.id desc""")
+    List<TransactionDTO> findHistoryPageAfter(@Param("accountId") Integer accountId,
+                                              @Param("dateTime") LocalDateTime dateTime,
+                                              @Param("id") Integer id,
+                                              Pageable pageable);
 }
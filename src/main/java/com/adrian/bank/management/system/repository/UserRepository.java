@@ -1,12 +1,15 @@
 package com.adrian.bank.management.system.repository;
 
 import com.adrian.bank.management.system.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
 
+    // Role is joined in the same select, it would be loaded by a second one otherwise
+    @EntityGraph(attributePaths = "role")
     Optional<User> findByUsername(String username);
 
     boolean existsByUsername(String username);
@@ -0,0 +1,73 @@
+package com.adrian.bank.management.system.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose strength is picked at startup, so one hash takes about the target time on this
+ * machine. Only weaker hashes are reported for re-encoding. Nodes calibrate to different strengths, re-encoding
+ * stronger hashes too would make users flip between them on every login depending on the node serving it.
+ */
+@Slf4j
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private final int strength;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public static AdaptiveBCryptPasswordEncoder calibrate(long targetMs, int minStrength, int maxStrength) {
+        // warm up, then take the fastest of a few hashes at the minimal strength
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        encoder.encode("calibration");
+
+        long fastestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+        }
+
+        int strength = strengthFor(targetMs * 1_000_000, fastestNanos, minStrength, maxStrength);
+
+        log.info("BCrypt strength {} calibrated for target {} ms, strength {} took {} ms",
+                strength, targetMs, minStrength, fastestNanos / 1_000_000);
+
+        return new AdaptiveBCryptPasswordEncoder(strength);
+    }
+
+    // Every strength step doubles the hashing time
+    static int strengthFor(long targetNanos, long minStrengthNanos, int minStrength, int maxStrength) {
+        int strength = minStrength;
+
+        while (strength < maxStrength && minStrengthNanos << (strength + 1 - minStrength) <= targetNanos) {
+            strength++;
+        }
+
+        return strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+}
@@ -1,5 +1,6 @@
 package com.adrian.bank.management.system.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -12,6 +13,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
@@ -21,16 +23,25 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
     private final UserDetailsServiceImpl userDetailsService;
 
+    private final VerifiedTokenCache verifiedTokenCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
         String jwt = parseJwt(request);
 
-        if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-            String username = jwtUtils.getUsernameFromJwtToken(jwt);
+        Optional<Claims> claims = jwt != null
+                ? verifiedTokenCache.getClaims(jwt, jwtUtils::parseJwtToken)
+                : Optional.empty();
+
+        if (claims.isPresent() && !jwtUtils.isRevoked(claims.get())) {
+            String username = claims.get().getSubject();
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // Self-contained tokens carry authorities, other tokens need the user from db
+            UserDetails userDetails = jwtUtils.getUserDetailsFromClaims(claims.get())
+                    .map(UserDetails.class::cast)
+                    .orElseGet(() -> userDetailsService.loadUserByUsername(username));
 
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails,
                     null, userDetails.getAuthorities());
@@ -10,4 +10,9 @@ public class AuthenticationFacade {
     public Authentication getAuthentication() {
         return SecurityContextHolder.getContext().getAuthentication();
     }
+
+    // Principal is loaded by AuthTokenFilter, from the token claims or the principal cache
+    public Integer getUserId() {
+        return ((UserDetailsImpl) getAuthentication().getPrincipal()).getId();
+    }
 }
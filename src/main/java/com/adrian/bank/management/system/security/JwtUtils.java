@@ -5,20 +5,50 @@ import io.jsonwebtoken.impl.TextCodec;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 @Slf4j
 public class JwtUtils {
 
-    @Value("${bank.app.jwtSecret}")
-    private String jwtSecret;
+    private static final String TOKEN_VERSION_CLAIM = "ver";
 
-    @Value("${bank.app.jwtHeaderName}")
-    private String jwtHeaderName;
+    private static final String USER_ID_CLAIM = "uid";
 
+    private static final String ROLES_CLAIM = "roles";
+
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+
+    private final String jwtHeaderName;
+
+    private final boolean selfContained;
+
+    private final SecretKey signingKey;
+
+    // Configured parser doesn't change state while parsing, so one instance is shared by all requests
+    private final JwtParser jwtParser;
+
+    public JwtUtils(TokenRevocationRegistry tokenRevocationRegistry,
+                    @Value("${bank.app.jwtSecret}") String jwtSecret,
+                    @Value("${bank.app.jwtHeaderName}") String jwtHeaderName,
+                    @Value("${bank.app.jwtSelfContained}") boolean selfContained) {
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.jwtHeaderName = jwtHeaderName;
+        this.selfContained = selfContained;
+
+        // Secret is base64 encoded, same as when it was passed to jjwt as a string
+        this.signingKey = new SecretKeySpec(TextCodec.BASE64.decode(jwtSecret),
+                SignatureAlgorithm.HS256.getJcaName());
+        this.jwtParser = Jwts.parser().setSigningKey(signingKey);
+    }
 
     public String getJwtFromHeaders(HttpServletRequest request) {
         String token = request.getHeader(jwtHeaderName);
@@ -27,22 +57,49 @@ public class JwtUtils {
     }
 
     public String generateJwt(UserDetailsImpl userDetails) {
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .signWith(SignatureAlgorithm.HS256, jwtSecret)
+                .claim(TOKEN_VERSION_CLAIM, tokenRevocationRegistry.getTokenVersion(userDetails.getUsername()));
+
+        if (selfContained) {
+            builder.claim(USER_ID_CLAIM, userDetails.getId())
+                    .claim(ROLES_CLAIM, userDetails.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .toList());
+        }
+
+        return builder
+                .signWith(SignatureAlgorithm.HS256, signingKey)
                 .compact();
     }
 
+    public boolean isRevoked(Claims claims) {
+        Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+
+        return tokenRevocationRegistry.isRevoked(claims.getSubject(), tokenVersion != null ? tokenVersion : 0);
+    }
+
+    // Empty when self-contained tokens are disabled or the token was issued without authorization claims
+    public Optional<UserDetailsImpl> getUserDetailsFromClaims(Claims claims) {
+        Integer userId = claims.get(USER_ID_CLAIM, Integer.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+
+        if (!selfContained || userId == null || roles == null) {
+            return Optional.empty();
+        }
+
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.toString()))
+                .toList();
 
-    public String getUsernameFromJwtToken(String jwt) {
-        return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(jwt).getBody().getSubject();
+        return Optional.of(new UserDetailsImpl(userId, claims.getSubject(), null, authorities));
     }
 
-    public boolean validateJwtToken(String authToken) {
+    // Verifies the signature and parses the claims in one pass, empty for invalid tokens
+    public Optional<Claims> parseJwtToken(String authToken) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-            return true;
+            return Optional.of(jwtParser.parseClaimsJws(authToken).getBody());
         } catch (SignatureException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -53,6 +110,6 @@ public class JwtUtils {
             log.error("JWT claims string is empty: {}", e.getMessage());
         }
 
-        return false;
+        return Optional.empty();
     }
-}
\ No newline at end of file
+}
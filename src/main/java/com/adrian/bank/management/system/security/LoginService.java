@@ -0,0 +1,64 @@
+package com.adrian.bank.management.system.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.*;
+
+/**
+ * Password hashing is CPU bound, logins run on a small dedicated pool so a burst of them can't take all cores
+ * from other requests. Logins over the queue capacity are rejected instead of piling up.
+ */
+@Service
+public class LoginService {
+
+    private final AuthenticationManager authManager;
+
+    private final JwtUtils jwtUtils;
+
+    private final ThreadPoolExecutor loginExecutor;
+
+    public LoginService(AuthenticationManager authManager, JwtUtils jwtUtils,
+                        @Value("${bank.app.loginThreads}") int loginThreads,
+                        @Value("${bank.app.loginQueueCapacity}") int loginQueueCapacity) {
+        this.authManager = authManager;
+        this.jwtUtils = jwtUtils;
+        this.loginExecutor = new ThreadPoolExecutor(loginThreads, loginThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(loginQueueCapacity), new CustomizableThreadFactory("login-"));
+    }
+
+    public String login(String username, String password) {
+        CompletableFuture<Authentication> authentication;
+
+        try {
+            authentication = CompletableFuture.supplyAsync(() -> authManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(username, password)), loginExecutor);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins, try again later.");
+        }
+
+        try {
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.join().getPrincipal();
+
+            return jwtUtils.generateJwt(userDetails);
+        } catch (CompletionException e) {
+            // rethrow authentication failures as they are, so they are handled like before
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loginExecutor.shutdown();
+    }
+}
@@ -0,0 +1,29 @@
+package com.adrian.bank.management.system.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory token versions per user. A token carries the version from the time it was issued, revoking bumps
+ * the version and every older token of that user is rejected. Only users with revoked tokens have an entry.
+ * Versions are not persisted, a restart makes revoked tokens valid again.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private final Map<String, Integer> tokenVersions = new ConcurrentHashMap<>();
+
+    public int getTokenVersion(String username) {
+        return tokenVersions.getOrDefault(username, 0);
+    }
+
+    public void revokeTokens(String username) {
+        tokenVersions.merge(username, 1, Integer::sum);
+    }
+
+    public boolean isRevoked(String username, int tokenVersion) {
+        return tokenVersion < getTokenVersion(username);
+    }
+}
@@ -13,6 +13,8 @@ import java.util.List;
 @AllArgsConstructor
 public class UserDetailsImpl implements UserDetails {
 
+    private Integer id;
+
     private String username;
 
     @JsonIgnore
@@ -25,7 +27,11 @@ public class UserDetailsImpl implements UserDetails {
                 new SimpleGrantedAuthority(user.getRole().getName().toString())
         );
 
-        return new UserDetailsImpl(user.getUsername(), user.getPassword(), authoritiesList);
+        return new UserDetailsImpl(user.getId(), user.getUsername(), user.getPassword(), authoritiesList);
+    }
+
+    public Integer getId() {
+        return id;
     }
 
     @Override
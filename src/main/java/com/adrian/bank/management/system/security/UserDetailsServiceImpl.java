@@ -1,8 +1,13 @@
 package com.adrian.bank.management.system.security;
 
+import com.adrian.bank.management.system.config.CacheConfig;
+import com.adrian.bank.management.system.entity.User;
 import com.adrian.bank.management.system.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -10,10 +15,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
+    // Called for every request with a JWT, cached entries are evicted by UserService when the user changes
+    @Cacheable(cacheNames = CacheConfig.PRINCIPALS)
     @Transactional
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -21,4 +28,19 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .map(UserDetailsImpl::build)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username " + username));
     }
+
+    // Password is already encoded, called by the authentication provider after a successful login
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#user.username")
+    @Transactional
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User userFromDb = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username " + user.getUsername()));
+
+        userFromDb.setPassword(newPassword);
+
+        userRepository.save(userFromDb);
+
+        return UserDetailsImpl.build(userFromDb);
+    }
 }
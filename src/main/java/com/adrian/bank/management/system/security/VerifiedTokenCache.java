@@ -0,0 +1,115 @@
+package com.adrian.bank.management.system.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Claims of already verified tokens, keyed by SHA-256 of the token, so a token sent again skips signature
+ * verification and JSON parsing. Entries live at most {@code jwtCacheTtlSec} and never past the token's
+ * expiration. Revocation is still checked on every request by the caller.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+
+    private final Cache<String, Claims> cache;
+
+    private final Timer verificationTimer;
+
+    private final Counter savedVerificationTime;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${bank.app.jwtCacheEnabled}") boolean enabled,
+                              @Value("${bank.app.jwtCacheMaxSize}") long maxSize,
+                              @Value("${bank.app.jwtCacheTtlSec}") long ttlSec) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(Duration.ofSeconds(ttlSec).toNanos()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+
+        this.verificationTimer = Timer.builder("bank.jwt.verification")
+                .description("Time spent verifying and parsing tokens")
+                .register(meterRegistry);
+        this.savedVerificationTime = Counter.builder("bank.jwt.verification.saved")
+                .description("Estimated verification time saved by cache hits, based on the mean verification time")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public Optional<Claims> getClaims(String token, Function<String, Optional<Claims>> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+
+        String key = hash(token);
+        Claims claims = cache.getIfPresent(key);
+
+        if (claims != null) {
+            savedVerificationTime.increment(verificationTimer.mean(TimeUnit.SECONDS));
+            return Optional.of(claims);
+        }
+
+        // Invalid tokens are not cached
+        Optional<Claims> verifiedClaims = verificationTimer.record(() -> verifier.apply(token));
+        verifiedClaims.ifPresent(verified -> cache.put(key, verified));
+
+        return verifiedClaims;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record TokenExpiry(long ttlNanos) implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            if (claims.getExpiration() == null) {
+                return ttlNanos;
+            }
+
+            long untilExpiration = TimeUnit.MILLISECONDS.toNanos(
+                    claims.getExpiration().getTime() - System.currentTimeMillis());
+
+            return Math.max(0, Math.min(ttlNanos, untilExpiration));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.adrian.bank.management.system.security;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,11 +10,13 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Map;
+
 @Configuration
 @EnableMethodSecurity
 @RequiredArgsConstructor
@@ -23,9 +26,27 @@ public class WebSecurityConfig {
     private final UserDetailsServiceImpl userDetailsService;
     private final AuthTokenFilter authTokenFilter;
 
+    @Value("${bank.app.passwordHashTargetMs}")
+    private long passwordHashTargetMs;
+
+    @Value("${bank.app.passwordHashMinStrength}")
+    private int passwordHashMinStrength;
+
+    @Value("${bank.app.passwordHashMaxStrength}")
+    private int passwordHashMaxStrength;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        AdaptiveBCryptPasswordEncoder bcryptEncoder = AdaptiveBCryptPasswordEncoder.calibrate(
+                passwordHashTargetMs, passwordHashMinStrength, passwordHashMaxStrength);
+
+        DelegatingPasswordEncoder passwordEncoder =
+                new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcryptEncoder));
+
+        // Hashes stored before encoder ids were used have no {bcrypt} prefix
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcryptEncoder);
+
+        return passwordEncoder;
     }
 
     @Bean
@@ -34,6 +55,8 @@ public class WebSecurityConfig {
 
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Re-encodes the password on successful login when its hash strength is weaker than the calibrated one
+        authProvider.setUserDetailsPasswordService(userDetailsService);
 
         return authProvider;
     }
@@ -0,0 +1,96 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.converter.AccountConverter;
+import com.adrian.bank.management.system.dto.AccountInformation;
+import com.adrian.bank.management.system.repository.AccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read-through cache of account information for balance polling. Every code path changing a balance evicts
+ * the account after its transaction commits. Eviction waits for a load of the same account in progress, so a
+ * read started after the commit always loads the committed balance. The TTL only bounds staleness caused by
+ * changes made outside this node.
+ */
+@Component
+public class AccountBalanceCache {
+
+    private final AccountRepository accountRepository;
+
+    private final Cache<Integer, CachedAccount> accounts;
+
+    private final Timer servedAge;
+
+    private final Counter invalidations;
+
+    public AccountBalanceCache(AccountRepository accountRepository, MeterRegistry meterRegistry,
+                               @Value("${bank.app.accountCacheMaxSize}") long maxSize,
+                               @Value("${bank.app.accountCacheTtlSec}") long ttlSec) {
+        this.accountRepository = accountRepository;
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSec))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, "accountBalances");
+
+        this.servedAge = Timer.builder("bank.account.cache.age")
+                .description("Time since the served account information was loaded from the db")
+                .register(meterRegistry);
+        this.invalidations = Counter.builder("bank.account.cache.invalidations")
+                .description("Accounts evicted after a committed balance change")
+                .register(meterRegistry);
+    }
+
+    // Returns null when the account doesn't exist, missing accounts are not cached
+    public AccountInformation getAccount(Integer accountId) {
+        CachedAccount cached = accounts.get(accountId, id -> accountRepository.findById(id)
+                .map(account -> new CachedAccount(AccountConverter.convertToDto(account), System.nanoTime()))
+                .orElse(null));
+
+        if (cached == null) {
+            return null;
+        }
+
+        servedAge.record(Duration.ofNanos(System.nanoTime() - cached.loadedAt()));
+
+        return cached.account();
+    }
+
+    // Evicts when the surrounding transaction commits, nothing is evicted on rollback
+    public void evictAfterCommit(Integer... accountIds) {
+        List<Integer> ids = List.of(accountIds);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(ids);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(ids);
+            }
+        });
+    }
+
+    private void evict(List<Integer> accountIds) {
+        accounts.invalidateAll(accountIds);
+        invalidations.increment(accountIds.size());
+    }
+
+    private record CachedAccount(AccountInformation account, long loadedAt) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.adrian.bank.management.system.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-JVM locks guarding account balances.
+ * <p>
+ * Locks are always taken in ascending stripe order, so two transfers touching the same pair of accounts
+ * in opposite directions can never deadlock. When called inside a transaction, the locks are held until
+ * the transaction completes.
+ * <p>
+ * Batch transfers don't use the stripes. Locking the stripes of thousands of accounts would block most other
+ * transfers, so batches lock only the rows of their own accounts.
+ */
+@Component
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+
+    private final long timeoutMs;
+
+    public AccountLockManager(@Value("${bank.app.accountLockStripes}") int stripeCount,
+                              @Value("${bank.app.accountLockTimeoutMs}") long timeoutMs) {
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Locks the stripes of all given accounts. Inside a transaction the locks are released after
+     * completion, otherwise the caller has to release them with {@link #unlock(List)}.
+     */
+    public List<ReentrantLock> lock(Integer... accountIds) {
+        List<ReentrantLock> acquired = new ArrayList<>(accountIds.length);
+
+        try {
+            for (int stripe : stripesInOrder(accountIds)) {
+                ReentrantLock lock = stripes[stripe];
+
+                if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "Account is busy, try again later.");
+                }
+                acquired.add(lock);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unlock(acquired);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for account lock");
+        } catch (RuntimeException e) {
+            unlock(acquired);
+            throw e;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    unlock(acquired);
+                }
+            });
+        }
+
+        return acquired;
+    }
+
+    public void unlock(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private int[] stripesInOrder(Integer... accountIds) {
+        // Two accounts can share a stripe - it has to be locked only once
+        return Arrays.stream(accountIds)
+                .mapToInt(this::stripeFor)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    private int stripeFor(Integer accountId) {
+        return Math.floorMod(accountId.hashCode() * 0x9E3779B9, stripes.length);
+    }
+}
@@ -0,0 +1,5 @@
+package com.adrian.bank.management.system.service;
+
+public enum AccountLockingMode {
+    ATOMIC, PESSIMISTIC, OPTIMISTIC
+}
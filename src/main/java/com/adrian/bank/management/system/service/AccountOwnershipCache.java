@@ -0,0 +1,44 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.repository.AccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Owner (user id) of every recently used account. An account never changes its owner, so entries don't need
+ * to be evicted, and ownership checks of history and balance requests don't go to the db at all.
+ */
+@Component
+public class AccountOwnershipCache {
+
+    private final AccountRepository accountRepository;
+
+    private final Cache<Integer, Integer> owners;
+
+    public AccountOwnershipCache(AccountRepository accountRepository, MeterRegistry meterRegistry,
+                                 @Value("${bank.app.accountOwnerCacheMaxSize}") long maxSize) {
+        this.accountRepository = accountRepository;
+        this.owners = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, owners, "accountOwners");
+    }
+
+    public void checkAccountOwnership(Integer userId, Integer accountId) {
+        // Missing accounts are not cached, the loader returns null for them
+        Integer ownerId = owners.get(accountId, id -> accountRepository.findOwnerId(id).orElse(null));
+
+        if (ownerId == null || !ownerId.equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Account not found for user: " + userId + " with accountId: " + accountId);
+        }
+    }
+}
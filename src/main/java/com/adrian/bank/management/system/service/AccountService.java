@@ -1,21 +1,34 @@
 package com.adrian.bank.management.system.service;
 
-import com.adrian.bank.management.system.converter.AccountConverter;
 import com.adrian.bank.management.system.dto.AccountInformation;
+import com.adrian.bank.management.system.dto.BatchTransferStatus;
 import com.adrian.bank.management.system.dto.TransferRequest;
 import com.adrian.bank.management.system.entity.Account;
 import com.adrian.bank.management.system.entity.Transaction;
 import com.adrian.bank.management.system.entity.TransactionType;
 import com.adrian.bank.management.system.repository.AccountRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,97 +38,367 @@ public class AccountService {
 
     private final TransactionService transactionService;
 
-    public AccountInformation getAccount(String username, Integer accountId) {
-        return accountRepository.findByIdAndUserUsername(accountId, username)
-                .map(AccountConverter::convertToDto)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Account not found for user: " + username + " with accountId: " + accountId));
-    }
+    private final AccountLockManager accountLockManager;
 
-    @Transactional
-    public void makeTransfer(String username, Integer accountId, TransferRequest transfer) {
-        // Get from db sender account - check if user has account
-        Account senderAccount = accountRepository.findByIdAndUserUsername(accountId, username)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Account not found for user: " + username + " with accountId: " + accountId));
+    private final AccountOwnershipCache accountOwnershipCache;
 
-        // Check if sender has enough money to make transfer
-        if (senderAccount.getBalance().compareTo(transfer.value()) < 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    "User doesn't have enough money to make a transfer.");
+    private final AccountBalanceCache accountBalanceCache;
+
+    private final IdempotencyService idempotencyService;
+
+    @Value("${bank.app.accountLockingMode}")
+    private AccountLockingMode lockingMode;
+
+    public AccountInformation getAccount(Integer userId, Integer accountId) {
+        accountOwnershipCache.checkAccountOwnership(userId, accountId);
+
+        AccountInformation account = accountBalanceCache.getAccount(accountId);
+
+        if (account == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Account not found for user: " + userId + " with accountId: " + accountId);
         }
 
-        // Get from db receiverAccount - check if account exist
-        Account receiverAccount = accountRepository.findById(transfer.accountIdTarget())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Receiver account with accountId: " + transfer.accountIdTarget() + " not found."));
+        return account;
+    }
 
-        // Update sender and receiver accounts and save them to db
-        senderAccount.subtractFromBalance(transfer.value());
-        receiverAccount.addToBalance(transfer.value());
+    @Retryable(retryFor = OptimisticLockingFailureException.class, label = "transfer",
+            listeners = "retryMetricsListener",
+            maxAttemptsExpression = "${bank.app.optimisticRetryMaxAttempts}",
+            backoff = @Backoff(delayExpression = "${bank.app.optimisticRetryDelayMs}",
+                    maxDelayExpression = "${bank.app.optimisticRetryMaxDelayMs}", multiplier = 2, random = true))
+    @Transactional(timeoutString = "${bank.app.accountTransactionTimeoutSec}")
+    public void makeTransfer(Integer userId, Integer accountId, TransferRequest transfer) {
+        if (lockingMode == AccountLockingMode.ATOMIC) {
+            transferAtomically(userId, accountId, transfer);
+        } else {
+            transferWithLoadedAccounts(userId, accountId, transfer);
+        }
 
-        accountRepository.saveAll(List.of(senderAccount, receiverAccount));
+        // Create and save transactions for sender and receiver, inserted in one batch
+        transactionService.saveTransactions(Transaction.transferLegs(
+                accountRepository.getReferenceById(accountId),
+                accountRepository.getReferenceById(transfer.accountIdTarget()),
+                transfer.value(),
+                LocalDateTime.now()));
 
-        // Create and save transaction for sender
-        Transaction transferTransactionSender = Transaction.builder()
-                .type(TransactionType.TRANSFER)
-                .amount(transfer.value())
-                .account(senderAccount)
-                .dateTime(LocalDateTime.now())
-                .build();
+        idempotencyService.recordKey();
 
-        transactionService.saveTransaction(transferTransactionSender);
+        accountBalanceCache.evictAfterCommit(accountId, transfer.accountIdTarget());
     }
 
-    @Transactional
-    public void withdraw(Integer accountId, String username, BigDecimal amount) {
-        // get user's account from db and check if it exists
-        Account account = accountRepository.findByIdAndUserUsername(accountId, username)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Account not found for user: " + username + " with accountId: " + accountId));
+    @Retryable(retryFor = OptimisticLockingFailureException.class, label = "withdraw",
+            listeners = "retryMetricsListener",
+            maxAttemptsExpression = "${bank.app.optimisticRetryMaxAttempts}",
+            backoff = @Backoff(delayExpression = "${bank.app.optimisticRetryDelayMs}",
+                    maxDelayExpression = "${bank.app.optimisticRetryMaxDelayMs}", multiplier = 2, random = true))
+    @Transactional(timeoutString = "${bank.app.accountTransactionTimeoutSec}")
+    public void withdraw(Integer accountId, Integer userId, BigDecimal amount) {
+        if (lockingMode == AccountLockingMode.ATOMIC) {
+            debit(userId, accountId, amount);
+        } else {
+            // get user's account from db and check if it exists
+            Account account = loadAccountForUpdate(userId, accountId);
 
-        // check if user has enough money on his account to withdraw
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    "User doesn't have enough money to make a transfer.");
-        }
+            // check if user has enough money on his account to withdraw
+            if (account.getBalance().compareTo(amount) < 0) {
+                throw new InsufficientFundsException();
+            }
 
-        // update balance on user's account
-        account.subtractFromBalance(amount);
+            // update balance on user's account
+            account.subtractFromBalance(amount);
 
-        accountRepository.save(account);
+            accountRepository.save(account);
+        }
 
         // create and save transaction for withdraw
         Transaction transaction = Transaction.builder()
                 .type(TransactionType.WITHDRAW)
                 .amount(amount)
-                .account(account)
+                .account(accountRepository.getReferenceById(accountId))
                 .dateTime(LocalDateTime.now())
                 .build();
 
         transactionService.saveTransaction(transaction);
+
+        idempotencyService.recordKey();
+
+        accountBalanceCache.evictAfterCommit(accountId);
     }
 
-    @Transactional
-    public void deposit(Integer accountId, String username, BigDecimal amount) {
-        // get user's account from db and check if it exists
-        Account account = accountRepository.findByIdAndUserUsername(accountId, username)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Account not found for user: " + username + " with accountId: " + accountId));
+    @Retryable(retryFor = OptimisticLockingFailureException.class, label = "deposit",
+            listeners = "retryMetricsListener",
+            maxAttemptsExpression = "${bank.app.optimisticRetryMaxAttempts}",
+            backoff = @Backoff(delayExpression = "${bank.app.optimisticRetryDelayMs}",
+                    maxDelayExpression = "${bank.app.optimisticRetryMaxDelayMs}", multiplier = 2, random = true))
+    @Transactional(timeoutString = "${bank.app.accountTransactionTimeoutSec}")
+    public void deposit(Integer accountId, Integer userId, BigDecimal amount) {
+        if (lockingMode == AccountLockingMode.ATOMIC) {
+            // ownership check and the update in a single statement
+            if (accountRepository.credit(accountId, userId, amount) == 0) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Account not found for user: " + userId + " with accountId: " + accountId);
+            }
+        } else {
+            // get user's account from db and check if it exists
+            Account account = loadAccountForUpdate(userId, accountId);
 
-        // update user account
-        account.addToBalance(amount);
+            // update user account
+            account.addToBalance(amount);
 
-        accountRepository.save(account);
+            accountRepository.save(account);
+        }
 
         // create and save transaction for deposit
         Transaction transaction = Transaction.builder()
                 .type(TransactionType.DEPOSIT)
                 .amount(amount)
-                .account(account)
+                .account(accountRepository.getReferenceById(accountId))
                 .dateTime(LocalDateTime.now())
                 .build();
 
         transactionService.saveTransaction(transaction);
+
+        idempotencyService.recordKey();
+
+        accountBalanceCache.evictAfterCommit(accountId);
+    }
+
+    /**
+     * Moves money from the account to each receiver, in order and in one transaction, with the configured
+     * locking mode. Ownership of the account and existence of the receivers are checked by the caller. A transfer
+     * the sender can't cover is marked {@link BatchTransferStatus#INSUFFICIENT_FUNDS} and skipped, one whose receiver
+     * was deleted since is marked {@link BatchTransferStatus#RECEIVER_NOT_FOUND}. With {@code stopOnFailure} the
+     * transaction is rolled back instead and the following transfers get no status.
+     * <p>
+     * In pessimistic mode the rows of the account and all receivers stay locked until the transaction ends, at most
+     * {@code bank.app.batchTransferTimeoutSec}. That is up to 10001 rows for an ALL_OR_NOTHING batch and
+     * {@code bank.app.batchTransferChunkSize} + 1 rows for a BEST_EFFORT chunk. Other transfers touching these
+     * accounts wait for the batch, transfers between other accounts don't.
+     */
+    @Retryable(retryFor = OptimisticLockingFailureException.class, label = "batchTransfer",
+            listeners = "retryMetricsListener",
+            maxAttemptsExpression = "${bank.app.optimisticRetryMaxAttempts}",
+            backoff = @Backoff(delayExpression = "${bank.app.optimisticRetryDelayMs}",
+                    maxDelayExpression = "${bank.app.optimisticRetryMaxDelayMs}", multiplier = 2, random = true))
+    @Transactional(timeoutString = "${bank.app.batchTransferTimeoutSec}")
+    public BatchTransferStatus[] makeTransfers(Integer userId, Integer accountId, List<TransferRequest> transfers,
+                                               boolean stopOnFailure) {
+        Set<Integer> accountIds = new TreeSet<>();
+        accountIds.add(accountId);
+        transfers.forEach(transfer -> accountIds.add(transfer.accountIdTarget()));
+
+        List<Transaction> transactions = new ArrayList<>();
+
+        BatchTransferStatus[] statuses = lockingMode == AccountLockingMode.ATOMIC
+                ? transfersAtomically(userId, accountId, transfers, transactions, stopOnFailure)
+                : transfersWithLoadedAccounts(accountId, accountIds, transfers, transactions, stopOnFailure);
+
+        if (stopOnFailure && Arrays.stream(statuses)
+                .anyMatch(status -> status != null && status != BatchTransferStatus.COMPLETED)) {
+            // Nothing of the batch is committed
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return statuses;
+        }
+
+        // Transactions of all transfers are inserted together
+        transactionService.saveTransactions(transactions);
+
+        accountBalanceCache.evictAfterCommit(accountIds.toArray(Integer[]::new));
+
+        return statuses;
+    }
+
+    private void transferAtomically(Integer userId, Integer accountId, TransferRequest transfer) {
+        Integer receiverAccountId = transfer.accountIdTarget();
+
+        // Update rows in ascending id order, so opposite transfers can't deadlock on row locks
+        if (accountId <= receiverAccountId) {
+            debit(userId, accountId, transfer.value());
+            credit(receiverAccountId, transfer.value());
+        } else {
+            credit(receiverAccountId, transfer.value());
+            debit(userId, accountId, transfer.value());
+        }
+    }
+
+    private void transferWithLoadedAccounts(Integer userId, Integer accountId, TransferRequest transfer) {
+        // Check if user has account
+        accountOwnershipCache.checkAccountOwnership(userId, accountId);
+
+        // Get from db sender and receiver accounts
+        Map<Integer, Account> accounts = loadAccountsForUpdate(accountId, transfer.accountIdTarget())
+                .stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+        Account senderAccount = accounts.get(accountId);
+
+        // Check if sender has enough money to make transfer
+        if (senderAccount.getBalance().compareTo(transfer.value()) < 0) {
+            throw new InsufficientFundsException();
+        }
+
+        // Check if receiver account exist
+        Account receiverAccount = accounts.get(transfer.accountIdTarget());
+
+        if (receiverAccount == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Receiver account with accountId: " + transfer.accountIdTarget() + " not found.");
+        }
+
+        // Update sender and receiver accounts and save them to db
+        senderAccount.subtractFromBalance(transfer.value());
+        receiverAccount.addToBalance(transfer.value());
+
+        accountRepository.saveAll(List.of(senderAccount, receiverAccount));
+    }
+
+    private BatchTransferStatus[] transfersAtomically(Integer userId, Integer accountId,
+                                                      List<TransferRequest> transfers, List<Transaction> transactions,
+                                                      boolean stopOnFailure) {
+        BatchTransferStatus[] statuses = new BatchTransferStatus[transfers.size()];
+
+        // Rows are updated in ascending id order, so batches can't deadlock with each other or with single
+        // transfers. Receivers below the sender are credited in full before the debits and corrected afterwards.
+        Map<Integer, BigDecimal> lowerCredits = new TreeMap<>();
+        Map<Integer, BigDecimal> upperCredits = new TreeMap<>();
+        Map<Integer, BigDecimal> corrections = new TreeMap<>();
+
+        for (TransferRequest transfer : transfers) {
+            if (transfer.accountIdTarget() < accountId) {
+                lowerCredits.merge(transfer.accountIdTarget(), transfer.value(), BigDecimal::add);
+            }
+        }
+        lowerCredits.forEach(this::credit);
+
+        Account senderAccount = accountRepository.getReferenceById(accountId);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            Integer receiverAccountId = transfer.accountIdTarget();
+
+            // ownership check, sufficient funds check and the update in a single statement
+            if (accountRepository.debit(accountId, userId, transfer.value()) == 0) {
+                statuses[i] = BatchTransferStatus.INSUFFICIENT_FUNDS;
+
+                if (stopOnFailure) {
+                    return statuses;
+                }
+                if (receiverAccountId < accountId) {
+                    corrections.merge(receiverAccountId, transfer.value().negate(), BigDecimal::add);
+                }
+                continue;
+            }
+
+            if (receiverAccountId > accountId) {
+                upperCredits.merge(receiverAccountId, transfer.value(), BigDecimal::add);
+            }
+
+            transactions.addAll(Transaction.transferLegs(senderAccount,
+                    accountRepository.getReferenceById(receiverAccountId), transfer.value(), now));
+
+            statuses[i] = BatchTransferStatus.COMPLETED;
+        }
+
+        // Rows below the sender are locked by this transaction already
+        corrections.forEach(this::credit);
+        upperCredits.forEach(this::credit);
+
+        return statuses;
+    }
+
+    private BatchTransferStatus[] transfersWithLoadedAccounts(Integer accountId, Set<Integer> accountIds,
+                                                              List<TransferRequest> transfers,
+                                                              List<Transaction> transactions,
+                                                              boolean stopOnFailure) {
+        BatchTransferStatus[] statuses = new BatchTransferStatus[transfers.size()];
+
+        // A batch can touch thousands of accounts, it locks their rows only - not the stripes shared with other
+        // accounts. Rows are locked in ascending id order, like the rows of single transfers.
+        List<Account> loaded = lockingMode == AccountLockingMode.OPTIMISTIC
+                ? accountRepository.findAllById(accountIds)
+                : accountRepository.findAllByIdForUpdate(accountIds);
+
+        Map<Integer, Account> accounts = loaded.stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+        Account senderAccount = accounts.get(accountId);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+
+            // Receiver existed when the caller checked, it can be deleted before its row is locked
+            Account receiverAccount = accounts.get(transfer.accountIdTarget());
+
+            if (receiverAccount == null) {
+                statuses[i] = BatchTransferStatus.RECEIVER_NOT_FOUND;
+            } else if (senderAccount.getBalance().compareTo(transfer.value()) < 0) {
+                // Sender doesn't have enough money left to make transfer
+                statuses[i] = BatchTransferStatus.INSUFFICIENT_FUNDS;
+            }
+
+            if (statuses[i] != null) {
+                if (stopOnFailure) {
+                    return statuses;
+                }
+                continue;
+            }
+
+            senderAccount.subtractFromBalance(transfer.value());
+            receiverAccount.addToBalance(transfer.value());
+
+            transactions.addAll(Transaction.transferLegs(senderAccount, receiverAccount, transfer.value(), now));
+
+            statuses[i] = BatchTransferStatus.COMPLETED;
+        }
+
+        // Changed accounts are flushed on commit, optimistic mode checks their versions then
+        return statuses;
+    }
+
+    private void debit(Integer userId, Integer accountId, BigDecimal amount) {
+        // ownership check, sufficient funds check and the update in a single statement
+        if (accountRepository.debit(accountId, userId, amount) == 0) {
+            accountOwnershipCache.checkAccountOwnership(userId, accountId);
+
+            throw new InsufficientFundsException();
+        }
+    }
+
+    private void credit(Integer accountId, BigDecimal amount) {
+        if (accountRepository.credit(accountId, amount) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Receiver account with accountId: " + accountId + " not found.");
+        }
+    }
+
+    private Account loadAccountForUpdate(Integer userId, Integer accountId) {
+        if (lockingMode == AccountLockingMode.OPTIMISTIC) {
+            // Concurrent changes are detected by Account version when the transaction commits
+            return accountRepository.findByIdAndUserId(accountId, userId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                            "Account not found for user: " + userId + " with accountId: " + accountId));
+        }
+
+        accountOwnershipCache.checkAccountOwnership(userId, accountId);
+
+        accountLockManager.lock(accountId);
+
+        return accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Account not found for user: " + userId + " with accountId: " + accountId));
+    }
+
+    private List<Account> loadAccountsForUpdate(Integer... accountIds) {
+        if (lockingMode == AccountLockingMode.OPTIMISTIC) {
+            return accountRepository.findAllById(List.of(accountIds));
+        }
+
+        // Lock stripes first, then rows, both in ascending id order
+        accountLockManager.lock(accountIds);
+
+        return accountRepository.findAllByIdForUpdate(List.of(accountIds));
     }
 }
@@ -0,0 +1,125 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.dto.*;
+import com.adrian.bank.management.system.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchTransferService {
+
+    private final AccountRepository accountRepository;
+
+    private final AccountOwnershipCache accountOwnershipCache;
+
+    private final AccountService accountService;
+
+    @Value("${bank.app.batchTransferChunkSize}")
+    private int chunkSize;
+
+    /**
+     * Makes all transfers from the given account, with the same locking mode as single transfers. In
+     * {@link BatchTransferMode#BEST_EFFORT} mode every chunk of transfers is committed in its own transaction and
+     * failed transfers are skipped, a chunk that fails as a whole marks its transfers
+     * {@link BatchTransferStatus#FAILED} and the next chunk still runs. In {@link BatchTransferMode#ALL_OR_NOTHING}
+     * mode the first failure aborts the whole batch.
+     */
+    public List<BatchTransferResult> makeBatchTransfer(Integer userId, Integer accountId, BatchTransferRequest batch) {
+        // Check if user has account
+        accountOwnershipCache.checkAccountOwnership(userId, accountId);
+
+        List<TransferRequest> transfers = batch.transfers();
+        BatchTransferStatus[] statuses = new BatchTransferStatus[transfers.size()];
+
+        // Check with one query which receiver accounts exist
+        Set<Integer> receiverAccountIds = transfers.stream()
+                .map(TransferRequest::accountIdTarget)
+                .collect(Collectors.toSet());
+
+        Set<Integer> existingAccountIds = new HashSet<>(accountRepository.findExistingIds(receiverAccountIds));
+
+        for (int i = 0; i < transfers.size(); i++) {
+            Integer receiverAccountId = transfers.get(i).accountIdTarget();
+
+            if (receiverAccountId.equals(accountId)) {
+                statuses[i] = BatchTransferStatus.SAME_ACCOUNT;
+            } else if (!existingAccountIds.contains(receiverAccountId)) {
+                statuses[i] = BatchTransferStatus.RECEIVER_NOT_FOUND;
+            }
+        }
+
+        if (batch.mode() == BatchTransferMode.ALL_OR_NOTHING) {
+            if (Arrays.stream(statuses).noneMatch(Objects::nonNull)) {
+                applyTransfers(userId, accountId, transfers, 0, transfers.size(), statuses, true);
+            }
+
+            abortIfAnyFailed(statuses);
+        } else {
+            for (int from = 0; from < transfers.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, transfers.size());
+
+                try {
+                    applyTransfers(userId, accountId, transfers, from, to, statuses, false);
+                } catch (RuntimeException e) {
+                    // The chunk is rolled back, earlier chunks stay committed
+                    log.warn("Batch transfer from account {} failed for transfers {} to {}", accountId, from, to - 1, e);
+
+                    for (int i = from; i < to; i++) {
+                        if (statuses[i] == null) {
+                            statuses[i] = BatchTransferStatus.FAILED;
+                        }
+                    }
+                }
+            }
+        }
+
+        return IntStream.range(0, transfers.size())
+                .mapToObj(i -> new BatchTransferResult(i, transfers.get(i).accountIdTarget(),
+                        transfers.get(i).value(), statuses[i]))
+                .toList();
+    }
+
+    // Transfers of the range without a status yet run in one transaction
+    private void applyTransfers(Integer userId, Integer accountId, List<TransferRequest> transfers, int from, int to,
+                                BatchTransferStatus[] statuses, boolean stopOnFailure) {
+        List<Integer> indexes = new ArrayList<>();
+        List<TransferRequest> pending = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (statuses[i] == null) {
+                indexes.add(i);
+                pending.add(transfers.get(i));
+            }
+        }
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        BatchTransferStatus[] applied = accountService.makeTransfers(userId, accountId, pending, stopOnFailure);
+
+        for (int i = 0; i < indexes.size(); i++) {
+            statuses[indexes.get(i)] = applied[i];
+        }
+    }
+
+    private void abortIfAnyFailed(BatchTransferStatus[] statuses) {
+        boolean failed = Arrays.stream(statuses)
+                .anyMatch(status -> status != null && status != BatchTransferStatus.COMPLETED);
+
+        if (failed) {
+            for (int i = 0; i < statuses.length; i++) {
+                if (statuses[i] == null || statuses[i] == BatchTransferStatus.COMPLETED) {
+                    statuses[i] = BatchTransferStatus.ABORTED;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.entity.IdempotencyKey;
+import com.adrian.bank.management.system.repository.IdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Idempotency-Key handling of money movements. Keys are stored in the idempotency_key table by the operation's own
+ * transaction (see {@link #recordKey()}), so a replay is answered from the table without touching account rows.
+ * A bounded in-memory index in front of the table answers repeated replays without a query and makes a concurrent
+ * duplicate wait for the in-flight operation instead of racing it. Duplicates sent to another node are stopped
+ * by the primary key of the table.
+ */
+@Slf4j
+@Component
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 64;
+
+    // Key of the operation running on this thread, inserted by its transaction
+    private static final ThreadLocal<IdempotencyKey> CURRENT_KEY = new ThreadLocal<>();
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final Duration keyTtl;
+
+    private final long waitTimeoutMs;
+
+    // Scoped key -> operation started or completed on this node
+    private final Cache<String, Execution> executions;
+
+    private final Counter replays;
+
+    private final ScheduledExecutorService purger;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${bank.app.idempotencyCacheMaxSize}") long cacheMaxSize,
+                              @Value("${bank.app.idempotencyKeyTtlHours}") long keyTtlHours,
+                              @Value("${bank.app.idempotencyWaitTimeoutMs}") long waitTimeoutMs) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.keyTtl = Duration.ofHours(keyTtlHours);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(keyTtl)
+                .recordStats()
+                .build();
+        this.replays = Counter.builder("bank.idempotency.replays")
+                .description("Requests answered with the result of an earlier request with the same Idempotency-Key")
+                .register(meterRegistry);
+        this.purger = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("idempotency-purge-"));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, executions, "idempotencyKeys");
+    }
+
+    // Parameters of the operation joined with ':', amounts compared by value (10 and 10.00 are the same request)
+    public static String fingerprint(Object... parts) {
+        return Arrays.stream(parts)
+                .map(part -> part instanceof BigDecimal amount ? amount.stripTrailingZeros().toPlainString()
+                        : String.valueOf(part))
+                .collect(Collectors.joining(":"));
+    }
+
+    /**
+     * Runs the operation once per key. Returns true when the request is a replay and the operation was not run.
+     * The operation has to commit its own transaction and call {@link #recordKey()} inside it.
+     */
+    public boolean execute(Integer userId, String key, String fingerprint, Runnable operation) {
+        if (key == null) {
+            operation.run();
+            return false;
+        }
+
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    HEADER + " has to have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String scopedKey = userId + ":" + key;
+
+        while (true) {
+            Execution execution = new Execution(fingerprint, new CompletableFuture<>());
+            Execution existing = executions.asMap().putIfAbsent(scopedKey, execution);
+
+            if (existing == null) {
+                return executeOnce(scopedKey, execution, operation);
+            }
+
+            checkFingerprint(existing.fingerprint(), fingerprint);
+
+            if (awaitSuccess(existing)) {
+                replays.increment();
+                return true;
+            }
+
+            // The earlier attempt failed and rolled back, this request runs the operation itself
+            executions.asMap().remove(scopedKey, existing);
+        }
+    }
+
+    // Called by the operation inside its transaction, does nothing for requests without a key
+    public void recordKey() {
+        IdempotencyKey key = CURRENT_KEY.get();
+
+        if (key != null) {
+            idempotencyKeyRepository.save(IdempotencyKey.builder()
+                    .id(key.getId())
+                    .fingerprint(key.getFingerprint())
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        purger.scheduleWithFixedDelay(this::purgeExpiredKeys, 0, 1, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdown();
+    }
+
+    void purgeExpiredKeys() {
+        try {
+            int purged = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(keyTtl));
+            log.debug("Purged {} expired idempotency keys", purged);
+        } catch (RuntimeException e) {
+            log.error("Purging expired idempotency keys failed", e);
+        }
+    }
+
+    private boolean executeOnce(String scopedKey, Execution execution, Runnable operation) {
+        try {
+            boolean replayed = runOrReplay(scopedKey, execution.fingerprint(), operation);
+            execution.completion().complete(null);
+
+            if (replayed) {
+                replays.increment();
+            }
+
+            return replayed;
+        } catch (RuntimeException e) {
+            // Nothing was committed, waiting duplicates retry and later requests run the operation again
+            executions.asMap().remove(scopedKey, execution);
+            execution.completion().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private boolean runOrReplay(String scopedKey, String fingerprint, Runnable operation) {
+        // Key committed before this node's index saw it - earlier run, other node or evicted entry
+        Optional<IdempotencyKey> stored = idempotencyKeyRepository.findById(scopedKey);
+
+        if (stored.isPresent()) {
+            checkFingerprint(stored.get().getFingerprint(), fingerprint);
+            return true;
+        }
+
+        CURRENT_KEY.set(IdempotencyKey.builder().id(scopedKey).fingerprint(fingerprint).build());
+
+        try {
+            operation.run();
+            return false;
+        } catch (DataIntegrityViolationException e) {
+            // The same key was committed concurrently on another node, this transaction rolled back
+            IdempotencyKey committed = idempotencyKeyRepository.findById(scopedKey).orElseThrow(() -> e);
+            checkFingerprint(committed.getFingerprint(), fingerprint);
+            return true;
+        } finally {
+            CURRENT_KEY.remove();
+        }
+    }
+
+    private boolean awaitSuccess(Execution execution) {
+        try {
+            execution.completion().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            return false;
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Request with this " + HEADER + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Request with this " + HEADER + " is still in progress");
+        }
+    }
+
+    private void checkFingerprint(String storedFingerprint, String fingerprint) {
+        if (!storedFingerprint.equals(fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used for a different request");
+        }
+    }
+
+    private record Execution(String fingerprint, CompletableFuture<Void> completion) {
+    }
+}
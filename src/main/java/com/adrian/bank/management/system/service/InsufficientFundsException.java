@@ -0,0 +1,15 @@
+package com.adrian.bank.management.system.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when an account balance doesn't cover a debit. Answered with 400 like any other rejected request, its own
+ * type lets the metrics tell it apart from the other 400s.
+ */
+public class InsufficientFundsException extends ResponseStatusException {
+
+    public InsufficientFundsException() {
+        super(HttpStatus.BAD_REQUEST, "User doesn't have enough money to make a transfer.");
+    }
+}
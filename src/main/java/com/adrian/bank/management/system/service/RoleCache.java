@@ -0,0 +1,59 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.entity.ERole;
+import com.adrian.bank.management.system.entity.Role;
+import com.adrian.bank.management.system.repository.RoleRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * All roles, loaded once at startup. The role table holds one row per {@link ERole} and never changes while the
+ * application runs, so lookups need no db access. A role missing from the map reloads it, e.g. when roles are
+ * inserted after startup. Absence is not cached: a role still missing after the reload fails the lookup, and the
+ * next lookup reads the db again.
+ */
+@Component
+public class RoleCache {
+
+    private final RoleRepository roleRepository;
+
+    // Replaced as a whole, readers never see a map being filled
+    private volatile Map<ERole, Role> roles = new EnumMap<>(ERole.class);
+
+    public RoleCache(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        roles = findAll();
+    }
+
+    public Role getRole(ERole name) {
+        Role role = roles.get(name);
+        if (role != null) {
+            return role;
+        }
+
+        Map<ERole, Role> loaded = findAll();
+        roles = loaded;
+
+        role = loaded.get(name);
+        if (role == null) {
+            throw new IllegalStateException("Role " + name + " not found in db");
+        }
+        return role;
+    }
+
+    private Map<ERole, Role> findAll() {
+        Map<ERole, Role> loaded = new EnumMap<>(ERole.class);
+        for (Role role : roleRepository.findAll()) {
+            loaded.put(role.getName(), role);
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,262 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.entity.JournalEntry;
+import com.adrian.bank.management.system.entity.Transaction;
+import com.adrian.bank.management.system.repository.AccountRepository;
+import com.adrian.bank.management.system.repository.JournalEntryRepository;
+import com.adrian.bank.management.system.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Journal mode for transaction rows. The request transaction only inserts a {@link JournalEntry} into the outbox
+ * table, it commits or rolls back together with the balance change. A single background writer moves committed
+ * entries to the transaction table in batches, every flush interval or as soon as a full batch is pending.
+ * Entries left in the outbox by a crash are moved on the next startup.
+ * <p>
+ * When a batch fails its entries are moved one by one, so a single entry the transaction table rejects doesn't
+ * hold back the ones behind it. Every failed move of an entry is counted on its row, after
+ * {@code transactionJournalMaxAttempts} the entry is left in the outbox for manual repair and counted in
+ * {@code bank.journal.failed}.
+ */
+@Slf4j
+@Component
+public class TransactionJournal {
+
+    private final JournalEntryRepository journalEntryRepository;
+
+    private final TransactionRepository transactionRepository;
+
+    private final AccountRepository accountRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final long flushIntervalMs;
+
+    private final int batchSize;
+
+    private final long capacity;
+
+    private final int maxAttempts;
+
+    // Entries committed to the outbox and not yet moved
+    private final AtomicLong pending = new AtomicLong();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ScheduledExecutorService writer;
+
+    private final Counter failed;
+
+    public TransactionJournal(JournalEntryRepository journalEntryRepository,
+                              TransactionRepository transactionRepository,
+                              AccountRepository accountRepository,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${bank.app.transactionJournalEnabled}") boolean enabled,
+                              @Value("${bank.app.transactionJournalFlushIntervalMs}") long flushIntervalMs,
+                              @Value("${bank.app.transactionJournalBatchSize}") int batchSize,
+                              @Value("${bank.app.transactionJournalCapacity}") long capacity,
+                              @Value("${bank.app.transactionJournalMaxAttempts}") int maxAttempts) {
+        this.journalEntryRepository = journalEntryRepository;
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.flushIntervalMs = flushIntervalMs;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.maxAttempts = maxAttempts;
+        this.writer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("journal-writer-"));
+
+        Gauge.builder("bank.journal.pending", pending, AtomicLong::get)
+                .description("Transactions committed to the journal and not yet written to the transaction table")
+                .register(meterRegistry);
+
+        this.failed = Counter.builder("bank.journal.failed")
+                .description("Journal entries given up on after repeated failed moves, left in the outbox")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Has to be called inside the transaction changing the balance
+    public void append(List<Transaction> transactions) {
+        // Backpressure: money movements are rejected while the writer is behind, the balance change rolls back
+        if (pending.get() + transactions.size() > capacity) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many pending transactions, try again later.");
+        }
+
+        journalEntryRepository.saveAll(transactions.stream()
+                .map(transaction -> JournalEntry.builder()
+                        .accountId(transaction.getAccount().getId())
+                        .dateTime(transaction.getDateTime())
+                        .amount(transaction.getAmount())
+                        .type(transaction.getType())
+                        .transferId(transaction.getTransferId())
+                        .build())
+                .toList());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed(transactions.size());
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                committed(transactions.size());
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Replay entries a previous run didn't move, even when journal mode was switched off since
+        long stored = journalEntryRepository.countByAttemptsLessThan(maxAttempts);
+        pending.set(stored);
+
+        if (stored > 0) {
+            log.info("Moving {} transactions left in the journal", stored);
+            requestFlush();
+        }
+
+        if (enabled) {
+            writer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Entries not moved yet stay in the outbox until the next startup
+        writer.shutdown();
+    }
+
+    void flush() {
+        flushRequested.set(false);
+
+        try {
+            int done;
+            do {
+                List<Long> ids = new ArrayList<>();
+                try {
+                    done = transactionTemplate.execute(status -> moveBatch(ids));
+                } catch (RuntimeException e) {
+                    log.warn("Moving a batch of {} journal entries failed, moving them one by one", ids.size(), e);
+                    done = moveEach(ids);
+                }
+
+                // Entries given up on aren't pending anymore, they don't count against the capacity
+                long doneEntries = done;
+                pending.updateAndGet(count -> Math.max(0, count - doneEntries));
+
+                // Entries still failing wait for the next flush, every flush costs them at most one attempt
+            } while (done == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Moving journal entries failed, they are retried on the next flush", e);
+        }
+    }
+
+    // Ids of the batch are collected even when moving it fails
+    private int moveBatch(List<Long> ids) {
+        List<JournalEntry> entries = journalEntryRepository.findOldestForUpdate(maxAttempts,
+                PageRequest.of(0, batchSize));
+        entries.forEach(entry -> ids.add(entry.getId()));
+
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        transactionRepository.saveAll(entries.stream().map(this::toTransaction).toList());
+        journalEntryRepository.deleteAllByIdInBatch(ids);
+
+        return entries.size();
+    }
+
+    // Returns the entries moved or given up on, failed entries stay pending until they run out of attempts
+    private int moveEach(List<Long> ids) {
+        int done = 0;
+
+        for (Long id : ids) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> journalEntryRepository
+                        .findByIdForUpdate(id, maxAttempts)
+                        .ifPresent(entry -> {
+                            transactionRepository.save(toTransaction(entry));
+                            journalEntryRepository.delete(entry);
+                        }));
+                done++;
+            } catch (RuntimeException e) {
+                if (recordFailure(id)) {
+                    done++;
+                    failed.increment();
+                    log.error("Giving up on journal entry {} after {} attempts, it is left in the outbox", id,
+                            maxAttempts, e);
+                } else {
+                    log.warn("Moving journal entry {} failed, it is retried on the next flush", id, e);
+                }
+            }
+        }
+
+        return done;
+    }
+
+    // Counts the failed attempt on the entry's row, true when it was the last one
+    private boolean recordFailure(Long id) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> journalEntryRepository.findById(id)
+                .map(entry -> {
+                    entry.setAttempts(entry.getAttempts() + 1);
+                    return entry.getAttempts() >= maxAttempts;
+                })
+                .orElse(false)));
+    }
+
+    private Transaction toTransaction(JournalEntry entry) {
+        return Transaction.builder()
+                .account(accountRepository.getReferenceById(entry.getAccountId()))
+                .dateTime(entry.getDateTime())
+                .amount(entry.getAmount())
+                .type(entry.getType())
+                .transferId(entry.getTransferId())
+                .build();
+    }
+
+    private void committed(int entries) {
+        if (pending.addAndGet(entries) >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    private void requestFlush() {
+        if (!writer.isShutdown() && flushRequested.compareAndSet(false, true)) {
+            writer.execute(this::flush);
+        }
+    }
+}
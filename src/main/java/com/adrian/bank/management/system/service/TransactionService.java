@@ -1,17 +1,23 @@
 package com.adrian.bank.management.system.service;
 
-import com.adrian.bank.management.system.converter.TransactionConverter;
+import com.adrian.bank.management.system.dto.ExportFormat;
+import com.adrian.bank.management.system.dto.TransactionCursor;
 import com.adrian.bank.management.system.dto.TransactionDTO;
+import com.adrian.bank.management.system.dto.TransactionHistoryPage;
 import com.adrian.bank.management.system.entity.Transaction;
 import com.adrian.bank.management.system.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -19,23 +25,91 @@ public class TransactionService {
 
     private final TransactionRepository transactionRepository;
 
-    public Page<TransactionDTO> getTransactionsForUserAccount(String username, Integer accountId, Pageable pageable) {
-        // Get from db all transactions belong to user's account
-       Page<Transaction> transactionsPage =
-               transactionRepository.findByAccount_IdAndAccount_User_Username(accountId, username, pageable);
+    private final AccountOwnershipCache accountOwnershipCache;
 
-       // Map transactions to dto objects
-        List<TransactionDTO> transactionDTOList = transactionsPage.getContent()
-                .stream()
-                .map(TransactionConverter::convertToDto)
-                .toList();
+    private final TransactionJournal transactionJournal;
 
-        // Return page of transactions
-       return new PageImpl<>(transactionDTOList, transactionsPage.getPageable(), transactionsPage.getTotalElements());
+    private final ObjectMapper objectMapper;
+
+    // Read-only transaction: Hibernate skips the flush at commit and the connection is marked read-only
+    @Transactional(readOnly = true)
+    public Page<TransactionDTO> getTransactionsForUserAccount(Integer userId, Integer accountId, Pageable pageable) {
+        accountOwnershipCache.checkAccountOwnership(userId, accountId);
+
+        // Get from db page of transactions belong to user's account, already mapped to dto objects
+        return transactionRepository.findPageByAccount(accountId, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public TransactionHistoryPage getTransactionHistory(Integer userId, Integer accountId, String cursor, int size) {
+        accountOwnershipCache.checkAccountOwnership(userId, accountId);
+
+        // One row more than requested tells if there is a next page
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<TransactionDTO> transactions;
+        if (cursor == null) {
+            transactions = transactionRepository.findFirstHistoryPage(accountId, limit);
+        } else {
+            TransactionCursor after = TransactionCursor.decode(cursor);
+            transactions = transactionRepository.findHistoryPageAfter(accountId, after.dateTime(), after.id(), limit);
+        }
+
+        boolean hasNext = transactions.size() > size;
+        List<TransactionDTO> transactionDTOList = hasNext ? transactions.subList(0, size) : transactions;
+
+        String nextCursor = null;
+        if (hasNext) {
+            TransactionDTO last = transactionDTOList.get(transactionDTOList.size() - 1);
+            nextCursor = new TransactionCursor(last.dateTime(), last.id()).encode();
+        }
+
+        return new TransactionHistoryPage(transactionDTOList, nextCursor);
+    }
+
+    // Rows go from the db cursor straight to the output, memory use doesn't depend on the number of transactions.
+    // The output is closed when the export is written or failed, the cursor is released either way.
+    @Transactional(readOnly = true)
+    public void exportTransactions(Integer userId, Integer accountId, ExportFormat format,
+                                   OutputStream outputStream) throws IOException {
+        accountOwnershipCache.checkAccountOwnership(userId, accountId);
+
+        // The output is a resource of its own, a writer failing to flush on close doesn't close it
+        try (OutputStream output = outputStream;
+             Stream<TransactionDTO> transactions = transactionRepository.streamAllForExport(accountId);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+
+            if (format == ExportFormat.CSV) {
+                writer.write("id,dateTime,amount,type\n");
+            }
+
+            for (TransactionDTO transaction : (Iterable<TransactionDTO>) transactions::iterator) {
+                if (format == ExportFormat.CSV) {
+                    writer.write(transaction.id() + "," + transaction.dateTime() + ","
+                            + transaction.amount().toPlainString() + "," + transaction.type() + "\n");
+                } else {
+                    writer.write(objectMapper.writeValueAsString(transaction));
+                    writer.write("\n");
+                }
+            }
+        }
     }
 
     @Transactional
     public void saveTransaction(Transaction transaction) {
-        transactionRepository.save(transaction);
+        if (transactionJournal.isEnabled()) {
+            transactionJournal.append(List.of(transaction));
+        } else {
+            transactionRepository.save(transaction);
+        }
+    }
+
+    @Transactional
+    public void saveTransactions(List<Transaction> transactions) {
+        if (transactionJournal.isEnabled()) {
+            transactionJournal.append(transactions);
+        } else {
+            transactionRepository.saveAll(transactions);
+        }
     }
 }
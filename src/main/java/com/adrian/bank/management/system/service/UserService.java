@@ -1,14 +1,16 @@
 package com.adrian.bank.management.system.service;
 
+import com.adrian.bank.management.system.config.CacheConfig;
 import com.adrian.bank.management.system.converter.UserConverter;
 import com.adrian.bank.management.system.dto.UserProfile;
 import com.adrian.bank.management.system.entity.ERole;
 import com.adrian.bank.management.system.entity.Role;
 import com.adrian.bank.management.system.entity.User;
-import com.adrian.bank.management.system.repository.RoleRepository;
 import com.adrian.bank.management.system.repository.UserRepository;
+import com.adrian.bank.management.system.security.TokenRevocationRegistry;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -23,10 +25,12 @@ public class UserService {
 
     private final UserRepository userRepository;
 
-    private final RoleRepository roleRepository;
+    private final RoleCache roleCache;
 
     private final PasswordEncoder passwordEncoder;
 
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+
     public UserProfile getUserDetails(String username) {
         return userRepository.findByUsername(username)
                 .map(UserConverter::convertToDto)
@@ -34,6 +38,7 @@ public class UserService {
                         "User not found with username " + username));
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#username")
     @Transactional
     public void updateUserDetails(UserProfile userDetails, String username) {
 
@@ -54,8 +59,14 @@ public class UserService {
 
         // save user to db
         userRepository.save(user);
+
+        // tokens issued for the old username can't be used anymore
+        if (!userDetails.username().equals(username)) {
+            tokenRevocationRegistry.revokeTokens(username);
+        }
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#username")
     @Transactional
     public void updatePassword(String username, String password) {
         User user = getUserFromDb(username);
@@ -64,6 +75,8 @@ public class UserService {
         user.setPassword(encodedPassword);
 
         userRepository.save(user);
+
+        tokenRevocationRegistry.revokeTokens(username);
     }
 
     private User getUserFromDb(String username) {
@@ -83,8 +96,8 @@ public class UserService {
         // generate random password for user
         String generatedPassword = RandomStringUtils.random(10, true, true);
 
-        // get role Customer from db
-        Role role = roleRepository.findByName(ERole.ROLE_CUSTOMER);
+        // get role Customer, roles are cached
+        Role role = roleCache.getRole(ERole.ROLE_CUSTOMER);
 
         // create and save user
         User newUser = User.builder()
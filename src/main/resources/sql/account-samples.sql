@@ -1,4 +1,6 @@
-INSERT INTO account (balance, opening_date, user_id)
-VALUES (4500.00, '2022-12-19', 1);
-INSERT INTO account (balance, opening_date, user_id)
-VALUES (2000.00, '2022-12-22', 2);
\ No newline at end of file
+INSERT INTO account (id, balance, opening_date, user_id, version)
+VALUES (1, 4500.00, '2022-12-19', 1, 0);
+INSERT INTO account (id, balance, opening_date, user_id, version)
+VALUES (2, 2000.00, '2022-12-22', 2, 0);
+
+UPDATE account_seq SET next_val = 101;
@@ -1 +1,8 @@
-INSERT INTO transaction (amount, date_time, type, account_id) VALUES (100, '2022-12-20', 'TRANSFER', 1);
\ No newline at end of file
+INSERT INTO transaction (id, amount, date_time, type, account_id, transfer_id)
+VALUES (1, 100, '2022-12-20', 'TRANSFER', 1, '5b0f2c6e-8f3a-4f7e-9a61-2d4f1c3b7e10');
+
+INSERT INTO transaction (id, amount, date_time, type, account_id, transfer_id)
+VALUES (2, 100, '2022-12-20', 'INCOMING_TRANSFER', 2, '5b0f2c6e-8f3a-4f7e-9a61-2d4f1c3b7e10');
+
+-- ids are allocated in blocks of 50, move the generator past the sample rows
+UPDATE transaction_seq SET next_val = 101;
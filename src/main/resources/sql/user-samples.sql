@@ -1,8 +1,11 @@
-INSERT INTO user (email, name, password, phone, registration_date, username, role_id)
-VALUES ('marcin@interia.pl', 'Marcin Wielki', '$2a$12$nkAjZLq/p9Y1KRAR2SVb0uoD4/squ42DgRzWhdqUBxsNheTSwZinO', '786356432', '2022-12-17', 'customer', 1);
+INSERT INTO user (id, email, name, password, phone, registration_date, username, role_id)
+VALUES (1, 'marcin@interia.pl', 'Marcin Wielki', '$2a$12$nkAjZLq/p9Y1KRAR2SVb0uoD4/squ42DgRzWhdqUBxsNheTSwZinO', '786356432', '2022-12-17', 'customer', 1);
 
-INSERT INTO user (email, name, password, phone, registration_date, username, role_id)
-VALUES ('janek@interia.pl', 'Janek Mały', '$2a$12$nkAjZLq/p9Y1KRAR2SVb0uoD4/squ42DgRzWhdqUBxsNheTSwZinO', '786356432', '2022-12-17', 'teller', 2);
+INSERT INTO user (id, email, name, password, phone, registration_date, username, role_id)
+VALUES (2, 'janek@interia.pl', 'Janek Mały', '$2a$12$nkAjZLq/p9Y1KRAR2SVb0uoD4/squ42DgRzWhdqUBxsNheTSwZinO', '786356432', '2022-12-17', 'teller', 2);
 
-INSERT INTO user (email, name, password, phone, registration_date, username, role_id)
-VALUES ('marek@interia.pl', 'Marek Krzywy', '$2a$12$nkAjZLq/p9Y1KRAR2SVb0uoD4/squ42DgRzWhdqUBxsNheTSwZinO', '786356432', '2022-12-17', 'admin', 3);
\ No newline at end of file
+INSERT INTO user (id, email, name, password, phone, registration_date, username, role_id)
+VALUES (3, 'marek@interia.pl', 'Marek Krzywy', '$2a$12$nkAjZLq/p9Y1KRAR2SVb0uoD4/squ42DgRzWhdqUBxsNheTSwZinO', '786356432', '2022-12-17', 'admin', 3);
+
+-- ids are allocated in blocks of 50, move the generator past the sample rows
+UPDATE user_seq SET next_val = 101;
@@ -0,0 +1,58 @@
+package com.adrian.bank.management.system.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdSequenceInitializerTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    IdSequenceInitializer idSequenceInitializer;
+
+    @BeforeEach
+    void setUp() {
+        idSequenceInitializer = new IdSequenceInitializer(jdbcTemplate);
+    }
+
+    @DisplayName("Sequence is moved one block past the highest id")
+    @Test
+    void sequenceMovedPastHighestId() {
+        when(jdbcTemplate.queryForObject("select max(id) from account", Long.class)).thenReturn(1200L);
+
+        idSequenceInitializer.advance("account", "account_seq");
+
+        verify(jdbcTemplate).update("update account_seq set next_val = ? where next_val < ?", 1251L, 1251L);
+    }
+
+    @DisplayName("Empty table - sequence untouched")
+    @Test
+    void emptyTableIgnored() {
+        when(jdbcTemplate.queryForObject("select max(id) from account", Long.class)).thenReturn(null);
+
+        idSequenceInitializer.advance("account", "account_seq");
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @DisplayName("Db other than MySQL - nothing is read")
+    @SuppressWarnings("unchecked")
+    @Test
+    void otherDbSkipped() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        idSequenceInitializer.initialize();
+
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class));
+    }
+}
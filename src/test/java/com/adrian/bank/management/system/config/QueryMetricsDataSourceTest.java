@@ -0,0 +1,90 @@
+package com.adrian.bank.management.system.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueryMetricsDataSourceTest {
+
+    @Mock
+    DataSource targetDataSource;
+
+    @Mock
+    Connection connection;
+
+    @Mock
+    PreparedStatement preparedStatement;
+
+    @Mock
+    Statement statement;
+
+    QueryMetricsDataSource dataSource;
+
+    QueryStats stats;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new QueryMetricsDataSource(targetDataSource, 200);
+        when(targetDataSource.getConnection()).thenReturn(connection);
+        stats = QueryStats.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        QueryStats.end();
+    }
+
+    @DisplayName("Executions of prepared and plain statements are counted by sql")
+    @Test
+    void executionsCounted() throws Exception {
+        when(connection.prepareStatement("select * from role where id = ?")).thenReturn(preparedStatement);
+        when(connection.createStatement()).thenReturn(statement);
+
+        try (Connection proxy = dataSource.getConnection()) {
+            PreparedStatement select = proxy.prepareStatement("select * from role where id = ?");
+            select.setInt(1, 1);
+            select.executeQuery();
+            select.setInt(1, 2);
+            select.executeQuery();
+
+            proxy.createStatement().execute("delete from idempotency_key");
+        }
+
+        assertEquals(3, stats.statements());
+        assertEquals(Map.of("select * from role where id = ?", 2, "delete from idempotency_key", 1),
+                stats.executions());
+        verify(preparedStatement, times(2)).executeQuery();
+        verify(connection).close();
+    }
+
+    @DisplayName("Batch counts as one statement")
+    @Test
+    void batchCountedOnce() throws Exception {
+        when(connection.prepareStatement("insert into transaction values (?)")).thenReturn(preparedStatement);
+
+        try (Connection proxy = dataSource.getConnection()) {
+            PreparedStatement insert = proxy.prepareStatement("insert into transaction values (?)");
+            insert.setInt(1, 1);
+            insert.addBatch();
+            insert.setInt(1, 2);
+            insert.addBatch();
+            insert.executeBatch();
+        }
+
+        assertEquals(1, stats.statements());
+    }
+}
@@ -0,0 +1,93 @@
+package com.adrian.bank.management.system.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Loads application.yml and application-prod.yml, the request metrics have to work with the prod settings
+@SpringJUnitConfig(initializers = ConfigDataApplicationContextInitializer.class)
+@ActiveProfiles("prod")
+@Import({QueryMetricsConfig.class, RequestMetricsFilter.class})
+class QueryMetricsProdProfileTest {
+
+    static final String URI = "/api/accounts/{accountId}";
+
+    @Configuration
+    static class Config {
+
+        // The data source post processor is created before placeholders would be resolved by default
+        @Bean
+        static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+            return new PropertySourcesPlaceholderConfigurer();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        DataSource dataSource() throws Exception {
+            Connection connection = mock(Connection.class);
+            when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+
+            DataSource dataSource = mock(DataSource.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            return dataSource;
+        }
+    }
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    RequestMetricsFilter requestMetricsFilter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @DisplayName("Prod profile - Statements and db time are recorded, no headers")
+    @Test
+    void requestMetricsRecorded() throws Exception {
+        assertInstanceOf(QueryMetricsDataSource.class, dataSource);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, URI);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        requestMetricsFilter.doFilter(request, response, (req, res) -> {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.prepareStatement("select balance from account where id = ?").executeQuery();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(1, meterRegistry.get("bank.request.db").tag("method", "GET").tag("uri", URI).timer().count());
+        assertEquals(1, meterRegistry.get("bank.request.statements").tag("uri", URI).summary().totalAmount());
+        assertNotNull(meterRegistry.get("bank.request.budget.exceeded").tag("uri", URI).counter());
+        assertNotNull(meterRegistry.get("bank.request.repeated.statements").tag("uri", URI).counter());
+
+        assertNull(response.getHeader(RequestMetricsFilter.QUERY_COUNT_HEADER));
+        assertNull(response.getHeader(RequestMetricsFilter.QUERY_TIME_HEADER));
+    }
+}
@@ -0,0 +1,122 @@
+package com.adrian.bank.management.system.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestMetricsFilterTest {
+
+    static final String URI = "/api/accounts/{accountId}";
+
+    MeterRegistry meterRegistry;
+
+    RequestMetricsFilter requestMetricsFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        requestMetricsFilter = new RequestMetricsFilter(meterRegistry, 3, 2, true);
+    }
+
+    @DisplayName("Statements and db time of the request are recorded under its uri template")
+    @Test
+    void statementsRecorded() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        requestMetricsFilter.doFilter(request(), response, (req, res) -> {
+            QueryStats.record("select a", TimeUnit.MILLISECONDS.toNanos(20));
+            QueryStats.record("select b", TimeUnit.MILLISECONDS.toNanos(5));
+        });
+
+        Timer timer = meterRegistry.get("bank.request.db").tag("method", "GET").tag("uri", URI).timer();
+        assertEquals(1, timer.count());
+        assertEquals(25, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(2, meterRegistry.get("bank.request.statements").tag("uri", URI).summary().totalAmount());
+        assertEquals(0, meterRegistry.get("bank.request.budget.exceeded").tag("uri", URI).counter().count());
+        assertEquals(0, meterRegistry.get("bank.request.repeated.statements").tag("uri", URI).counter().count());
+
+        assertEquals("2", response.getHeader(RequestMetricsFilter.QUERY_COUNT_HEADER));
+        assertEquals("25", response.getHeader(RequestMetricsFilter.QUERY_TIME_HEADER));
+    }
+
+    @DisplayName("Request over the budget and repeated statements are counted")
+    @Test
+    void budgetExceededAndRepeatedStatements() throws Exception {
+        requestMetricsFilter.doFilter(request(), new MockHttpServletResponse(), (req, res) -> {
+            QueryStats.record("select account", 1000);
+            QueryStats.record("select role", 1000);
+            QueryStats.record("select role", 1000);
+            QueryStats.record("select role", 1000);
+        });
+
+        assertEquals(1, meterRegistry.get("bank.request.budget.exceeded").tag("uri", URI).counter().count());
+        assertEquals(1, meterRegistry.get("bank.request.repeated.statements").tag("uri", URI).counter().count());
+    }
+
+    @DisplayName("Headers are set before the body commits the response")
+    @Test
+    void headersBeforeCommit() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        requestMetricsFilter.doFilter(request(), response, (req, res) -> {
+            QueryStats.record("select a", 1000);
+            res.getWriter().write("body");
+            res.flushBuffer();
+            QueryStats.record("select b", 1000);
+        });
+
+        assertTrue(response.isCommitted());
+        assertEquals("1", response.getHeader(RequestMetricsFilter.QUERY_COUNT_HEADER));
+    }
+
+    @DisplayName("No headers when disabled - Statements and db time are still recorded")
+    @Test
+    void headersDisabled() throws Exception {
+        requestMetricsFilter = new RequestMetricsFilter(meterRegistry, 3, 2, false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        requestMetricsFilter.doFilter(request(), response, (req, res) -> QueryStats.record("select a", 1000));
+
+        assertNull(response.getHeader(RequestMetricsFilter.QUERY_COUNT_HEADER));
+        assertNull(response.getHeader(RequestMetricsFilter.QUERY_TIME_HEADER));
+        assertEquals(1, meterRegistry.get("bank.request.db").tag("uri", URI).timer().count());
+        assertEquals(1, meterRegistry.get("bank.request.statements").tag("uri", URI).summary().totalAmount());
+    }
+
+    @DisplayName("Request without a matched controller is not recorded")
+    @Test
+    void unmappedRequestIgnored() throws Exception {
+        requestMetricsFilter.doFilter(new MockHttpServletRequest("GET", "/missing"), new MockHttpServletResponse(),
+                (req, res) -> {
+                });
+
+        assertTrue(meterRegistry.find("bank.request.db").timers().isEmpty());
+    }
+
+    @DisplayName("Statements outside a request are not collected")
+    @Test
+    void statementsOutsideRequestIgnored() throws Exception {
+        QueryStats.record("select outside", 1000);
+
+        requestMetricsFilter.doFilter(request(), new MockHttpServletResponse(), (req, res) -> {
+        });
+
+        assertEquals(0, meterRegistry.get("bank.request.statements").tag("uri", URI).summary().totalAmount());
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, URI);
+        return request;
+    }
+}
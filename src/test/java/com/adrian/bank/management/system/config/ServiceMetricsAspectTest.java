@@ -0,0 +1,91 @@
+package com.adrian.bank.management.system.config;
+
+import com.adrian.bank.management.system.service.AccountService;
+import com.adrian.bank.management.system.service.InsufficientFundsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServiceMetricsAspectTest {
+
+    @Mock
+    ProceedingJoinPoint joinPoint;
+
+    @Mock
+    MethodSignature signature;
+
+    @Mock
+    AccountService accountService;
+
+    MeterRegistry meterRegistry;
+
+    ServiceMetricsAspect serviceMetricsAspect;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        meterRegistry = new SimpleMeterRegistry();
+        serviceMetricsAspect = new ServiceMetricsAspect(meterRegistry);
+
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getTarget()).thenReturn(accountService);
+        when(signature.getMethod()).thenReturn(
+                AccountService.class.getMethod("withdraw", Integer.class, Integer.class, BigDecimal.class));
+    }
+
+    @DisplayName("Service metrics - Missing balance is counted as insufficient funds")
+    @Test
+    void insufficientFunds() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new InsufficientFundsException());
+
+        assertThrows(InsufficientFundsException.class, () -> serviceMetricsAspect.record(joinPoint));
+
+        assertEquals(1, outcomes("insufficient_funds"));
+        assertEquals(0, outcomes("rejected"));
+    }
+
+    @DisplayName("Service metrics - Other bad requests are counted as rejected")
+    @Test
+    void otherBadRequestIsRejected() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid amount"));
+
+        assertThrows(ResponseStatusException.class, () -> serviceMetricsAspect.record(joinPoint));
+
+        assertEquals(1, outcomes("rejected"));
+        assertEquals(0, outcomes("insufficient_funds"));
+        assertEquals(1, meterRegistry.get("bank.service").tag("outcome", "error").timer().count());
+    }
+
+    @DisplayName("Service metrics - Successful call is counted and timed")
+    @Test
+    void success() throws Throwable {
+        when(joinPoint.proceed()).thenReturn(null);
+
+        serviceMetricsAspect.record(joinPoint);
+
+        assertEquals(1, outcomes("success"));
+        assertEquals(1, meterRegistry.get("bank.service").tag("outcome", "success").timer().count());
+    }
+
+    private double outcomes(String outcome) {
+        return meterRegistry.get("bank.account.outcomes")
+                .tag("operation", "withdraw")
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+}
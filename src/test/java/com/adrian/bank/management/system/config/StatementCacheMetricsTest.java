@@ -0,0 +1,72 @@
+package com.adrian.bank.management.system.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatementCacheMetricsTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    MeterRegistry meterRegistry;
+
+    StatementCacheMetrics statementCacheMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        statementCacheMetrics = new StatementCacheMetrics(jdbcTemplate, meterRegistry, 15);
+    }
+
+    @DisplayName("Hit ratio is computed from prepares and executions of the last interval")
+    @Test
+    void hitRatioOfLastInterval() {
+        statementCacheMetrics.update(Map.of("Com_stmt_prepare", 100L, "Com_stmt_execute", 200L));
+
+        assertTrue(Double.isNaN(meterRegistry.get("bank.db.statement.cache.hit.ratio").gauge().value()));
+
+        statementCacheMetrics.update(Map.of("Com_stmt_prepare", 110L, "Com_stmt_execute", 1200L,
+                "Prepared_stmt_count", 40L));
+
+        assertEquals(0.99, meterRegistry.get("bank.db.statement.cache.hit.ratio").gauge().value(), 1e-9);
+        assertEquals(1200, meterRegistry.get("bank.db.statements.executed").functionCounter().count());
+        assertEquals(40, meterRegistry.get("bank.db.statements.open").gauge().value());
+    }
+
+    @DisplayName("Interval without executions keeps the last hit ratio")
+    @Test
+    void idleIntervalKeepsRatio() {
+        statementCacheMetrics.update(Map.of("Com_stmt_prepare", 0L, "Com_stmt_execute", 0L));
+        statementCacheMetrics.update(Map.of("Com_stmt_prepare", 1L, "Com_stmt_execute", 4L));
+        statementCacheMetrics.update(Map.of("Com_stmt_prepare", 1L, "Com_stmt_execute", 4L));
+
+        assertEquals(0.75, statementCacheMetrics.hitRatio(), 1e-9);
+    }
+
+    @DisplayName("Failed status query is logged and keeps the last values")
+    @Test
+    void failedQueryKeepsValues() {
+        statementCacheMetrics.update(Map.of("Com_stmt_execute", 10L));
+        doThrow(new IllegalStateException("db down"))
+                .when(jdbcTemplate).query(eq(StatementCacheMetrics.STATUS_QUERY), any(RowCallbackHandler.class));
+
+        statementCacheMetrics.refresh();
+
+        assertEquals(10, statementCacheMetrics.value("Com_stmt_execute"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.adrian.bank.management.system.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+
+    MeterRegistry meterRegistry;
+
+    VirtualThreadPinningMonitor monitor;
+
+    private final Object lock = new Object();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(10));
+        monitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @DisplayName("Virtual thread sleeping inside synchronized block is reported with its call site")
+    @Test
+    void pinnedThreadReported() throws Exception {
+        Thread.ofVirtual().start(this::sleepWhilePinned).join();
+
+        // JFR streams events in chunks, about once per second
+        Timer timer = null;
+        for (int i = 0; i < 100 && timer == null; i++) {
+            timer = meterRegistry.find("bank.virtual.pinned")
+                    .tag("site", VirtualThreadPinningMonitorTest.class.getName() + ".sleepWhilePinned")
+                    .timer();
+            Thread.sleep(100);
+        }
+
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    private void sleepWhilePinned() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.adrian.bank.management.system.controller;
 
-import com.adrian.bank.management.system.dto.AccountInformation;
-import com.adrian.bank.management.system.dto.TransferRequest;
+import com.adrian.bank.management.system.dto.*;
+import com.adrian.bank.management.system.entity.IdempotencyKey;
+import com.adrian.bank.management.system.repository.IdempotencyKeyRepository;
 import com.adrian.bank.management.system.security.AuthenticationFacade;
 import com.adrian.bank.management.system.service.AccountService;
-import com.adrian.bank.management.system.utility.AuthenticationUtility;
+import com.adrian.bank.management.system.service.BatchTransferService;
+import com.adrian.bank.management.system.service.IdempotencyService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -22,10 +25,11 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -38,6 +42,12 @@ class AccountControllerTest {
     @Mock
     AccountService accountService;
 
+    @Mock
+    BatchTransferService batchTransferService;
+
+    @Mock
+    IdempotencyKeyRepository idempotencyKeyRepository;
+
     @Mock
     AuthenticationFacade authFacade;
 
@@ -52,7 +62,10 @@ class AccountControllerTest {
 
     @BeforeEach
     void setUp() {
-        accountController = new AccountController(accountService, authFacade);
+        IdempotencyService idempotencyService = new IdempotencyService(idempotencyKeyRepository,
+                new SimpleMeterRegistry(), 100, 24, 1000);
+        accountController = new AccountController(accountService, batchTransferService, idempotencyService,
+                authFacade);
 
         mockMvc = MockMvcBuilders.standaloneSetup(accountController)
                 .setControllerAdvice(new ValidationExceptionHandler())
@@ -64,8 +77,8 @@ class AccountControllerTest {
     void getAccountInformation() throws Exception {
         AccountInformation accountInformation = buildAccountInformation();
 
-        when(authFacade.getAuthentication()).thenReturn(AuthenticationUtility.buildAuthenticatedUser());
-        when(accountService.getAccount(anyString(), anyInt())).thenReturn(accountInformation);
+        when(authFacade.getUserId()).thenReturn(10);
+        when(accountService.getAccount(anyInt(), anyInt())).thenReturn(accountInformation);
 
         mockMvc.perform(get("/api/accounts/1"))
                 .andExpect(status().isOk())
@@ -75,8 +88,8 @@ class AccountControllerTest {
     @DisplayName("Get information about user's account - Account not found")
     @Test
     void getAccountInformationFailedAccountNotFound() throws Exception {
-        when(authFacade.getAuthentication()).thenReturn(AuthenticationUtility.buildAuthenticatedUser());
-        when(accountService.getAccount(anyString(), anyInt()))
+        when(authFacade.getUserId()).thenReturn(10);
+        when(accountService.getAccount(anyInt(), anyInt()))
                 .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND));
 
         mockMvc.perform(get("/api/accounts/1"))
@@ -92,14 +105,55 @@ class AccountControllerTest {
     void makeTransfer() throws Exception {
         TransferRequest transfer = new TransferRequest(1, BigDecimal.valueOf(200));
 
-        when(authFacade.getAuthentication()).thenReturn(AuthenticationUtility.buildAuthenticatedUser());
+        when(authFacade.getUserId()).thenReturn(10);
 
         mockMvc.perform(patch("/api/accounts/1/transfer")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(transfer)))
                 .andExpect(status().isOk());
 
-        verify(accountService, times(1)).makeTransfer(anyString(), anyInt(), any());
+        verify(accountService, times(1)).makeTransfer(anyInt(), anyInt(), any());
+    }
+
+    @DisplayName("Make transfer from one account to another - Replayed request with the same Idempotency-Key")
+    @Test
+    void makeTransferIdempotencyKeyReplayed() throws Exception {
+        TransferRequest transfer = new TransferRequest(2, BigDecimal.valueOf(200));
+
+        when(authFacade.getUserId()).thenReturn(10);
+
+        mockMvc.perform(patch("/api/accounts/1/transfer")
+                        .header(IdempotencyService.HEADER, "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfer)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+
+        mockMvc.perform(patch("/api/accounts/1/transfer")
+                        .header(IdempotencyService.HEADER, "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfer)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+
+        verify(accountService, times(1)).makeTransfer(anyInt(), anyInt(), any());
+    }
+
+    @DisplayName("Deposit money - Failed - Idempotency-Key used for a different amount")
+    @Test
+    void depositIdempotencyKeyReused() throws Exception {
+        when(authFacade.getUserId()).thenReturn(10);
+        when(idempotencyKeyRepository.findById("10:key-1")).thenReturn(Optional.of(IdempotencyKey.builder()
+                .id("10:key-1")
+                .fingerprint(IdempotencyService.fingerprint("deposit", 1, 100))
+                .build()));
+
+        mockMvc.perform(patch("/api/accounts/1/deposit")
+                        .header(IdempotencyService.HEADER, "key-1")
+                        .param("amount", "200"))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(accountService, times(0)).deposit(anyInt(), anyInt(), any());
     }
 
     @DisplayName("Make transfer from one account to another - Validation failed")
@@ -113,7 +167,43 @@ class AccountControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.errors", hasSize(2)));
 
-        verify(accountService, times(0)).makeTransfer(anyString(), anyInt(), any());
+        verify(accountService, times(0)).makeTransfer(anyInt(), anyInt(), any());
+    }
+
+    @DisplayName("Make batch of transfers from one account")
+    @Test
+    void makeBatchTransfer() throws Exception {
+        BatchTransferRequest batch = new BatchTransferRequest(
+                List.of(new TransferRequest(2, BigDecimal.valueOf(200)), new TransferRequest(3, BigDecimal.TEN)),
+                BatchTransferMode.BEST_EFFORT);
+
+        List<BatchTransferResult> results = List.of(
+                new BatchTransferResult(0, 2, BigDecimal.valueOf(200), BatchTransferStatus.COMPLETED),
+                new BatchTransferResult(1, 3, BigDecimal.TEN, BatchTransferStatus.RECEIVER_NOT_FOUND));
+
+        when(authFacade.getUserId()).thenReturn(10);
+        when(batchTransferService.makeBatchTransfer(anyInt(), anyInt(), any())).thenReturn(results);
+
+        mockMvc.perform(post("/api/accounts/1/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].status", is("RECEIVER_NOT_FOUND")));
+    }
+
+    @DisplayName("Make batch of transfers from one account - Validation failed")
+    @Test
+    void makeBatchTransferValidationFailed() throws Exception {
+        BatchTransferRequest batch = new BatchTransferRequest(List.of(), null);
+
+        mockMvc.perform(post("/api/accounts/1/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors", hasSize(2)));
+
+        verify(batchTransferService, times(0)).makeBatchTransfer(anyInt(), anyInt(), any());
     }
 
     @DisplayName("Withdraw money - Validation Failed - Amount not positive")
@@ -127,13 +217,13 @@ class AccountControllerTest {
     @DisplayName("Withdraw money")
     @Test
     void withdraw() throws Exception {
-        when(authFacade.getAuthentication()).thenReturn(AuthenticationUtility.buildAuthenticatedUser());
+        when(authFacade.getUserId()).thenReturn(10);
 
         mockMvc.perform(patch("/api/accounts/1/withdraw")
                         .param("amount", "200"))
                 .andExpect(status().isOk());
 
-        verify(accountService, times(1)).withdraw(anyInt(), anyString(), any());
+        verify(accountService, times(1)).withdraw(anyInt(), anyInt(), any());
     }
 
     @DisplayName("Deposit money - Validation Failed - Amount not positive")
@@ -147,14 +237,13 @@ class AccountControllerTest {
     @DisplayName("Deposit money")
     @Test
     void deposit() throws Exception {
-        when(authFacade.getAuthentication())
-                .thenReturn(AuthenticationUtility.buildAuthenticatedUser());
+        when(authFacade.getUserId()).thenReturn(10);
 
         mockMvc.perform(patch("/api/accounts/1/deposit")
                         .param("amount", "200"))
                 .andExpect(status().isOk());
 
         verify(accountService, times(1))
-                .deposit(anyInt(), anyString(), any());
+                .deposit(anyInt(), anyInt(), any());
     }
 }
\ No newline at end of file
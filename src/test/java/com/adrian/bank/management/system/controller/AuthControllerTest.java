@@ -1,7 +1,8 @@
 package com.adrian.bank.management.system.controller;
 
 import com.adrian.bank.management.system.dto.UserProfile;
-import com.adrian.bank.management.system.security.JwtUtils;
+import com.adrian.bank.management.system.dto.LoginRequest;
+import com.adrian.bank.management.system.security.LoginService;
 import com.adrian.bank.management.system.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,7 +12,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -21,6 +23,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -30,10 +34,7 @@ class AuthControllerTest {
     AuthController authController;
 
     @Mock
-    AuthenticationManager authenticationManager;
-
-    @Mock
-    JwtUtils jwtUtils;
+    LoginService loginService;
 
     @Mock
     UserService userService;
@@ -44,7 +45,7 @@ class AuthControllerTest {
 
     @BeforeEach
     void setUp() {
-        authController = new AuthController(authenticationManager, jwtUtils, userService);
+        authController = new AuthController(loginService, userService);
 
         mockMvc = MockMvcBuilders.standaloneSetup(authController)
                 .setControllerAdvice(new ValidationExceptionHandler())
@@ -78,6 +79,30 @@ class AuthControllerTest {
         verify(userService, times(1)).createUser(any());
     }
 
+    @DisplayName("Login")
+    @Test
+    void login() throws Exception {
+        when(loginService.login("customer", "password")).thenReturn("token");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequest("customer", "password"))))
+                .andExpect(status().isOk())
+                .andExpect(content().string("token"));
+    }
+
+    @DisplayName("Login - Failed - Too many logins")
+    @Test
+    void loginRejected() throws Exception {
+        when(loginService.login("customer", "password"))
+                .thenThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequest("customer", "password"))))
+                .andExpect(status().isServiceUnavailable());
+    }
+
     private UserProfile buildValidUserRequest() {
         return new UserProfile("username", "Jan Kowalski",
                 "546123567", "jan.kowalski@wp.pl");
@@ -1,10 +1,11 @@
 package com.adrian.bank.management.system.controller;
 
+import com.adrian.bank.management.system.dto.ExportFormat;
 import com.adrian.bank.management.system.dto.TransactionDTO;
+import com.adrian.bank.management.system.dto.TransactionHistoryPage;
 import com.adrian.bank.management.system.entity.TransactionType;
 import com.adrian.bank.management.system.security.AuthenticationFacade;
 import com.adrian.bank.management.system.service.TransactionService;
-import com.adrian.bank.management.system.utility.AuthenticationUtility;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeAll;
@@ -18,19 +19,23 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -71,8 +76,8 @@ class TransactionControllerTest {
                 1
         );
 
-        when(authFacade.getAuthentication()).thenReturn(AuthenticationUtility.buildAuthenticatedUser());
-        when(transactionService.getTransactionsForUserAccount(anyString(), anyInt(), any()))
+        when(authFacade.getUserId()).thenReturn(10);
+        when(transactionService.getTransactionsForUserAccount(anyInt(), anyInt(), any()))
                 .thenReturn(transactionsFromTransactionService);
 
         mockMvc.perform(get("/api/transactions/1")
@@ -83,6 +88,59 @@ class TransactionControllerTest {
                         .string(objectMapper.writeValueAsString(transactionsFromTransactionService)));
     }
 
+    @DisplayName("Get transaction history page for given account")
+    @Test
+    void getTransactionHistory() throws Exception {
+        TransactionHistoryPage page = new TransactionHistoryPage(List.of(buildTransactionDTO()), "cursor");
+
+        when(authFacade.getUserId()).thenReturn(10);
+        when(transactionService.getTransactionHistory(10, 1, "previous", 20)).thenReturn(page);
+
+        mockMvc.perform(get("/api/transactions/1/history")
+                        .param("cursor", "previous"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(page)));
+    }
+
+    @DisplayName("Get transaction history page - Validation failed - Size too big")
+    @Test
+    void getTransactionHistoryValidationFailed() throws Exception {
+        mockMvc.perform(get("/api/transactions/1/history")
+                        .param("size", "101"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @DisplayName("Export transactions as CSV attachment")
+    @Test
+    void exportTransactions() throws Exception {
+        when(authFacade.getUserId()).thenReturn(10);
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(3);
+            outputStream.write("id,dateTime,amount,type\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(transactionService).exportTransactions(eq(10), eq(1), eq(ExportFormat.CSV), any());
+
+        mockMvc.perform(get("/api/transactions/1/export")
+                        .param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions-1.csv\""))
+                .andExpect(content().string("id,dateTime,amount,type\n"));
+    }
+
+    @DisplayName("Export transactions - Failed - Unsupported format")
+    @Test
+    void exportTransactionsUnsupportedFormat() throws Exception {
+        when(authFacade.getUserId()).thenReturn(10);
+
+        mockMvc.perform(get("/api/transactions/1/export")
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(transactionService);
+    }
+
     private TransactionDTO buildTransactionDTO() {
         return new TransactionDTO(1, LocalDateTime.now(), BigDecimal.valueOf(200), TransactionType.TRANSFER);
     }
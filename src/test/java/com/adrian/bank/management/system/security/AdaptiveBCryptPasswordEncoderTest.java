@@ -0,0 +1,58 @@
+package com.adrian.bank.management.system.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBCryptPasswordEncoderTest {
+
+    @DisplayName("Strength - Highest strength within target time")
+    @Test
+    void strengthFor() {
+        // 10 ms at strength 4 -> 20 ms at 5, 40 ms at 6, 80 ms at 7
+        assertEquals(6, AdaptiveBCryptPasswordEncoder.strengthFor(79_000_000, 10_000_000, 4, 12));
+        assertEquals(7, AdaptiveBCryptPasswordEncoder.strengthFor(80_000_000, 10_000_000, 4, 12));
+    }
+
+    @DisplayName("Strength - Limited by min and max strength")
+    @Test
+    void strengthForLimits() {
+        assertEquals(4, AdaptiveBCryptPasswordEncoder.strengthFor(1_000_000, 10_000_000, 4, 12));
+        assertEquals(12, AdaptiveBCryptPasswordEncoder.strengthFor(Long.MAX_VALUE >> 20, 10_000_000, 4, 12));
+    }
+
+    @DisplayName("Calibrate - Encoder hashes with calibrated strength")
+    @Test
+    void calibrate() {
+        AdaptiveBCryptPasswordEncoder encoder = AdaptiveBCryptPasswordEncoder.calibrate(1, 4, 6);
+
+        assertTrue(encoder.getStrength() >= 4 && encoder.getStrength() <= 6);
+        assertTrue(encoder.matches("password", encoder.encode("password")));
+    }
+
+    @DisplayName("Upgrade encoding - Only weaker hashes are re-encoded")
+    @Test
+    void upgradeEncoding() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @DisplayName("Upgrade encoding - Nodes calibrated differently - Hash isn't re-encoded back and forth")
+    @Test
+    void upgradeEncodingAcrossNodes() {
+        AdaptiveBCryptPasswordEncoder fastNode = new AdaptiveBCryptPasswordEncoder(6);
+        AdaptiveBCryptPasswordEncoder slowNode = new AdaptiveBCryptPasswordEncoder(5);
+
+        String hash = fastNode.encode("password");
+
+        assertFalse(slowNode.upgradeEncoding(hash));
+        assertFalse(fastNode.upgradeEncoding(hash));
+        assertTrue(fastNode.upgradeEncoding(slowNode.encode("password")));
+    }
+}
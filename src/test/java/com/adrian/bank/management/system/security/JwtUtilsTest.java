@@ -0,0 +1,96 @@
+package com.adrian.bank.management.system.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTest {
+
+    static final String JWT_SECRET = "GtFPkqzKAbks8cswXPXN";
+
+    TokenRevocationRegistry tokenRevocationRegistry;
+
+    JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationRegistry = new TokenRevocationRegistry();
+        jwtUtils = new JwtUtils(tokenRevocationRegistry, JWT_SECRET, "Authorization", false);
+    }
+
+    @DisplayName("Self-contained token - User details are built from claims")
+    @Test
+    void getUserDetailsFromClaimsSelfContained() {
+        jwtUtils = new JwtUtils(tokenRevocationRegistry, JWT_SECRET, "Authorization", true);
+
+        Claims claims = jwtUtils.parseJwtToken(jwtUtils.generateJwt(buildUserDetails())).orElseThrow();
+        Optional<UserDetailsImpl> userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+
+        assertTrue(userDetails.isPresent());
+        assertEquals(1, userDetails.get().getId());
+        assertEquals("customer", userDetails.get().getUsername());
+        assertEquals(List.of("ROLE_CUSTOMER"), userDetails.get().getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+    }
+
+    @DisplayName("Plain token - User details have to be loaded from db")
+    @Test
+    void getUserDetailsFromClaimsPlainToken() {
+        Claims claims = jwtUtils.parseJwtToken(jwtUtils.generateJwt(buildUserDetails())).orElseThrow();
+
+        assertEquals("customer", claims.getSubject());
+        assertTrue(jwtUtils.getUserDetailsFromClaims(claims).isEmpty());
+    }
+
+    @DisplayName("Revoked token - Tokens issued before revocation are rejected")
+    @Test
+    void isRevoked() {
+        Claims oldClaims = jwtUtils.parseJwtToken(jwtUtils.generateJwt(buildUserDetails())).orElseThrow();
+
+        tokenRevocationRegistry.revokeTokens("customer");
+
+        Claims newClaims = jwtUtils.parseJwtToken(jwtUtils.generateJwt(buildUserDetails())).orElseThrow();
+
+        assertTrue(jwtUtils.isRevoked(oldClaims));
+        assertFalse(jwtUtils.isRevoked(newClaims));
+    }
+
+    @DisplayName("Parse token - Token signed with the secret as a string is accepted")
+    @Test
+    void parseJwtTokenSignedWithSecretString() {
+        String token = Jwts.builder()
+                .setSubject("customer")
+                .signWith(SignatureAlgorithm.HS256, JWT_SECRET)
+                .compact();
+
+        assertEquals("customer", jwtUtils.parseJwtToken(token).map(Claims::getSubject).orElseThrow());
+    }
+
+    @DisplayName("Parse token - Failed - Invalid signature")
+    @Test
+    void parseJwtTokenInvalidSignature() {
+        String token = Jwts.builder()
+                .setSubject("customer")
+                .signWith(SignatureAlgorithm.HS256, "b3RoZXJTZWNyZXQ=")
+                .compact();
+
+        assertTrue(jwtUtils.parseJwtToken(token).isEmpty());
+        assertTrue(jwtUtils.parseJwtToken("not.a.token").isEmpty());
+    }
+
+    private UserDetailsImpl buildUserDetails() {
+        return new UserDetailsImpl(1, "customer", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+    }
+}
@@ -0,0 +1,99 @@
+package com.adrian.bank.management.system.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginServiceTest {
+
+    @Mock
+    AuthenticationManager authManager;
+
+    @Mock
+    JwtUtils jwtUtils;
+
+    LoginService loginService;
+
+    @BeforeEach
+    void setUp() {
+        loginService = new LoginService(authManager, jwtUtils, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loginService.shutdown();
+    }
+
+    @DisplayName("Login")
+    @Test
+    void login() {
+        UserDetailsImpl userDetails = new UserDetailsImpl(1, "customer", "password", List.of());
+
+        when(authManager.authenticate(any()))
+                .thenReturn(new UsernamePasswordAuthenticationToken(userDetails, null, List.of()));
+        when(jwtUtils.generateJwt(userDetails)).thenReturn("token");
+
+        assertEquals("token", loginService.login("customer", "password"));
+    }
+
+    @DisplayName("Login - Failed - Bad credentials are rethrown")
+    @Test
+    void loginBadCredentials() {
+        when(authManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        assertThrows(BadCredentialsException.class, () -> loginService.login("customer", "password"));
+    }
+
+    @DisplayName("Login - Failed - Logins over the queue capacity are rejected")
+    @Test
+    void loginRejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(authManager.authenticate(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new BadCredentialsException("Bad credentials");
+        });
+
+        // one login hashing, one waiting in the queue
+        Thread running = new Thread(() -> assertThrows(BadCredentialsException.class,
+                () -> loginService.login("customer", "password")));
+        running.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Thread queued = new Thread(() -> assertThrows(BadCredentialsException.class,
+                () -> loginService.login("customer", "password")));
+        queued.start();
+        while (queued.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> loginService.login("customer", "password"));
+
+        release.countDown();
+        running.join();
+        queued.join();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+    }
+}
@@ -0,0 +1,117 @@
+package com.adrian.bank.management.system.security;
+
+import com.adrian.bank.management.system.config.CacheConfig;
+import com.adrian.bank.management.system.entity.ERole;
+import com.adrian.bank.management.system.entity.Role;
+import com.adrian.bank.management.system.entity.User;
+import com.adrian.bank.management.system.repository.RoleRepository;
+import com.adrian.bank.management.system.repository.UserRepository;
+import com.adrian.bank.management.system.service.RoleCache;
+import com.adrian.bank.management.system.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+@Import({CacheConfig.class, UserDetailsServiceImpl.class, UserService.class, RoleCache.class,
+        TokenRevocationRegistry.class})
+@TestPropertySource(properties = {"bank.app.principalCacheMaxSize=100", "bank.app.principalCacheTtlSec=60"})
+class UserDetailsServiceImplTest {
+
+    @MockBean
+    UserRepository userRepository;
+
+    @MockBean
+    RoleRepository roleRepository;
+
+    @MockBean
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.PRINCIPALS).clear();
+    }
+
+    @DisplayName("Load user by username - Principal is read from db once")
+    @Test
+    void loadUserByUsernameCached() {
+        when(userRepository.findByUsername("customer")).thenReturn(Optional.of(buildUser()));
+
+        UserDetails first = userDetailsService.loadUserByUsername("customer");
+        UserDetails second = userDetailsService.loadUserByUsername("customer");
+
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByUsername("customer");
+    }
+
+    @DisplayName("Load user by username - Failed - Missing user is not cached")
+    @Test
+    void loadUserByUsernameNotFound() {
+        when(userRepository.findByUsername("customer")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("customer"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("customer"));
+
+        verify(userRepository, times(2)).findByUsername("customer");
+    }
+
+    @DisplayName("Load user by username - Password change evicts cached principal")
+    @Test
+    void loadUserByUsernameAfterPasswordChange() {
+        when(userRepository.findByUsername("customer")).thenReturn(Optional.of(buildUser()));
+        when(passwordEncoder.encode("newPassword")).thenReturn("encodedNewPassword");
+
+        userDetailsService.loadUserByUsername("customer");
+        userService.updatePassword("customer", "newPassword");
+        UserDetails userDetails = userDetailsService.loadUserByUsername("customer");
+
+        assertEquals("encodedNewPassword", userDetails.getPassword());
+    }
+
+    @DisplayName("Update password - Re-encoded password replaces cached principal")
+    @Test
+    void updatePassword() {
+        User user = buildUser();
+
+        when(userRepository.findByUsername("customer")).thenReturn(Optional.of(user));
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername("customer");
+        UserDetails updatedUserDetails = userDetailsService.updatePassword(userDetails, "{bcrypt}rehashed");
+
+        assertEquals("{bcrypt}rehashed", updatedUserDetails.getPassword());
+        assertEquals("{bcrypt}rehashed", userDetailsService.loadUserByUsername("customer").getPassword());
+        verify(userRepository, times(1)).save(user);
+    }
+
+    private User buildUser() {
+        return User.builder()
+                .id(1)
+                .username("customer")
+                .password("password")
+                .role(new Role(ERole.ROLE_CUSTOMER))
+                .build();
+    }
+}
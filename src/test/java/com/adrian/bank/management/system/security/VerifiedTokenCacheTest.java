@@ -0,0 +1,93 @@
+package com.adrian.bank.management.system.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    MeterRegistry meterRegistry;
+
+    VerifiedTokenCache verifiedTokenCache;
+
+    AtomicInteger verifications;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        verifiedTokenCache = new VerifiedTokenCache(meterRegistry, true, 100, 60);
+        verifications = new AtomicInteger();
+    }
+
+    @DisplayName("Get claims - Repeated token is verified once")
+    @Test
+    void getClaimsCached() {
+        Function<String, Optional<Claims>> verifier = verifier(new DefaultClaims().setSubject("customer"));
+
+        Optional<Claims> first = verifiedTokenCache.getClaims("token", verifier);
+        Optional<Claims> second = verifiedTokenCache.getClaims("token", verifier);
+
+        assertEquals("customer", second.map(Claims::getSubject).orElseThrow());
+        assertSame(first.get(), second.get());
+        assertEquals(1, verifications.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("bank.jwt.verification").timer().count());
+    }
+
+    @DisplayName("Get claims - Invalid token is not cached")
+    @Test
+    void getClaimsInvalidToken() {
+        Function<String, Optional<Claims>> verifier = token -> {
+            verifications.incrementAndGet();
+            return Optional.empty();
+        };
+
+        assertTrue(verifiedTokenCache.getClaims("token", verifier).isEmpty());
+        assertTrue(verifiedTokenCache.getClaims("token", verifier).isEmpty());
+
+        assertEquals(2, verifications.get());
+    }
+
+    @DisplayName("Get claims - Expired token is verified again")
+    @Test
+    void getClaimsExpiredToken() {
+        Claims claims = new DefaultClaims()
+                .setSubject("customer")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000));
+
+        verifiedTokenCache.getClaims("token", verifier(claims));
+        verifiedTokenCache.getClaims("token", verifier(claims));
+
+        assertEquals(2, verifications.get());
+    }
+
+    @DisplayName("Get claims - Disabled cache verifies every token")
+    @Test
+    void getClaimsDisabled() {
+        verifiedTokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), false, 100, 60);
+        Function<String, Optional<Claims>> verifier = verifier(new DefaultClaims().setSubject("customer"));
+
+        verifiedTokenCache.getClaims("token", verifier);
+        verifiedTokenCache.getClaims("token", verifier);
+
+        assertEquals(2, verifications.get());
+    }
+
+    private Function<String, Optional<Claims>> verifier(Claims claims) {
+        return token -> {
+            verifications.incrementAndGet();
+            return Optional.of(claims);
+        };
+    }
+}
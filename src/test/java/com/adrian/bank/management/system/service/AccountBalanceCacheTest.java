@@ -0,0 +1,139 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.dto.AccountInformation;
+import com.adrian.bank.management.system.entity.Account;
+import com.adrian.bank.management.system.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountBalanceCacheTest {
+
+    @Mock
+    AccountRepository accountRepository;
+
+    MeterRegistry meterRegistry;
+
+    AccountBalanceCache accountBalanceCache;
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountBalanceCache = new AccountBalanceCache(accountRepository, meterRegistry, 100, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @DisplayName("Get account - Repeated read is served from cache")
+    @Test
+    void getAccountCached() {
+        when(accountRepository.findById(1)).thenReturn(Optional.of(buildAccount(100)));
+
+        accountBalanceCache.getAccount(1);
+        AccountInformation account = accountBalanceCache.getAccount(1);
+
+        assertEquals(BigDecimal.valueOf(100), account.balance());
+        verify(accountRepository, times(1)).findById(1);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(2, meterRegistry.get("bank.account.cache.age").timer().count());
+    }
+
+    @DisplayName("Get account - Missing account is not cached")
+    @Test
+    void getAccountNotFound() {
+        when(accountRepository.findById(1)).thenReturn(Optional.empty());
+
+        assertNull(accountBalanceCache.getAccount(1));
+        assertNull(accountBalanceCache.getAccount(1));
+
+        verify(accountRepository, times(2)).findById(1);
+    }
+
+    @DisplayName("Evict after commit - Entry stays until the transaction commits")
+    @Test
+    void evictAfterCommit() {
+        when(accountRepository.findById(1))
+                .thenReturn(Optional.of(buildAccount(100)), Optional.of(buildAccount(300)));
+        accountBalanceCache.getAccount(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        accountBalanceCache.evictAfterCommit(1);
+
+        assertEquals(BigDecimal.valueOf(100), accountBalanceCache.getAccount(1).balance());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(BigDecimal.valueOf(300), accountBalanceCache.getAccount(1).balance());
+        assertEquals(1, meterRegistry.get("bank.account.cache.invalidations").counter().count());
+    }
+
+    @DisplayName("Evict after commit - Read started after commit never returns the balance loaded before it")
+    @Test
+    void evictAfterCommitDuringLoad() throws Exception {
+        AtomicReference<BigDecimal> committedBalance = new AtomicReference<>(BigDecimal.valueOf(100));
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch finishLoad = new CountDownLatch(1);
+
+        // The first load reads the balance, then stalls until the write has committed
+        when(accountRepository.findById(1)).thenAnswer(invocation -> {
+            Account account = buildAccount(committedBalance.get().intValue());
+            loadStarted.countDown();
+            finishLoad.await(5, TimeUnit.SECONDS);
+            return Optional.of(account);
+        }).thenAnswer(invocation -> Optional.of(buildAccount(committedBalance.get().intValue())));
+
+        Future<AccountInformation> slowRead = executor.submit(() -> accountBalanceCache.getAccount(1));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        // Write commits while the load is in progress, eviction runs after commit
+        committedBalance.set(BigDecimal.valueOf(300));
+        Thread eviction = new Thread(() -> accountBalanceCache.evictAfterCommit(1));
+        eviction.start();
+
+        // Eviction either waits for the load or is already done, only then the load is finished
+        while (eviction.getState() == Thread.State.NEW || eviction.getState() == Thread.State.RUNNABLE) {
+            Thread.onSpinWait();
+        }
+
+        finishLoad.countDown();
+        slowRead.get(5, TimeUnit.SECONDS);
+        eviction.join(5000);
+
+        assertEquals(BigDecimal.valueOf(300), accountBalanceCache.getAccount(1).balance());
+    }
+
+    private Account buildAccount(int balance) {
+        return Account.builder()
+                .id(1)
+                .balance(BigDecimal.valueOf(balance))
+                .openingDate(LocalDate.now())
+                .build();
+    }
+}
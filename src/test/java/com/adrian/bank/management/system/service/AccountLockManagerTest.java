@@ -0,0 +1,101 @@
+package com.adrian.bank.management.system.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLockManagerTest {
+
+    @DisplayName("Opposite transfers between the same accounts don't deadlock")
+    @Test
+    void oppositeTransfersDontDeadlock() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(1024, 5000);
+        AtomicInteger completed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            CompletableFuture<?> forward = CompletableFuture.runAsync(
+                    () -> transferMany(lockManager, start, 1, 2, completed), executor);
+            CompletableFuture<?> backward = CompletableFuture.runAsync(
+                    () -> transferMany(lockManager, start, 2, 1, completed), executor);
+
+            start.countDown();
+            CompletableFuture.allOf(forward, backward).get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(20_000, completed.get());
+    }
+
+    @DisplayName("Lock times out when account is held by another thread")
+    @Test
+    void lockTimesOut() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16, 50);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> {
+            List<ReentrantLock> locks = lockManager.lock(1);
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lockManager.unlock(locks);
+            }
+        });
+        holder.start();
+        locked.await();
+
+        assertThrows(ResponseStatusException.class, () -> lockManager.lock(1, 2));
+
+        release.countDown();
+        holder.join();
+
+        // Nothing stays locked after the failed attempt
+        lockManager.unlock(lockManager.lock(1, 2));
+    }
+
+    @DisplayName("Accounts sharing a stripe are locked only once")
+    @Test
+    void accountsSharingStripeLockedOnce() {
+        AccountLockManager lockManager = new AccountLockManager(1, 50);
+
+        List<ReentrantLock> locks = lockManager.lock(1, 2, 3);
+
+        assertEquals(1, locks.size());
+        assertEquals(1, locks.get(0).getHoldCount());
+
+        lockManager.unlock(locks);
+    }
+
+    private void transferMany(AccountLockManager lockManager, CountDownLatch start,
+                              Integer from, Integer to, AtomicInteger completed) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            List<ReentrantLock> locks = lockManager.lock(from, to);
+            completed.incrementAndGet();
+            lockManager.unlock(locks);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountOwnershipCacheTest {
+
+    @Mock
+    AccountRepository accountRepository;
+
+    AccountOwnershipCache accountOwnershipCache;
+
+    @BeforeEach
+    void setUp() {
+        accountOwnershipCache = new AccountOwnershipCache(accountRepository, new SimpleMeterRegistry(), 100);
+    }
+
+    @DisplayName("Check account ownership - Owner is loaded from db once")
+    @Test
+    void checkAccountOwnershipCached() {
+        when(accountRepository.findOwnerId(1)).thenReturn(Optional.of(10));
+
+        accountOwnershipCache.checkAccountOwnership(10, 1);
+        accountOwnershipCache.checkAccountOwnership(10, 1);
+
+        verify(accountRepository, times(1)).findOwnerId(1);
+    }
+
+    @DisplayName("Check account ownership - Failed - Account belongs to other user")
+    @Test
+    void checkAccountOwnershipOtherUser() {
+        when(accountRepository.findOwnerId(1)).thenReturn(Optional.of(10));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> accountOwnershipCache.checkAccountOwnership(11, 1));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+    }
+
+    @DisplayName("Check account ownership - Failed - Missing account is not cached")
+    @Test
+    void checkAccountOwnershipAccountNotFound() {
+        when(accountRepository.findOwnerId(1)).thenReturn(Optional.empty());
+
+        assertThrows(ResponseStatusException.class, () -> accountOwnershipCache.checkAccountOwnership(10, 1));
+        assertThrows(ResponseStatusException.class, () -> accountOwnershipCache.checkAccountOwnership(10, 1));
+
+        verify(accountRepository, times(2)).findOwnerId(1);
+    }
+}
@@ -0,0 +1,144 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.config.RetryConfig;
+import com.adrian.bank.management.system.config.RetryMetricsListener;
+import com.adrian.bank.management.system.entity.Account;
+import com.adrian.bank.management.system.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Import({RetryConfig.class, AccountService.class})
+@TestPropertySource(properties = {"bank.app.accountLockingMode=OPTIMISTIC", "bank.app.accountTransactionTimeoutSec=10",
+        "bank.app.batchTransferTimeoutSec=30", "bank.app.optimisticRetryMaxAttempts=3",
+        "bank.app.optimisticRetryDelayMs=1", "bank.app.optimisticRetryMaxDelayMs=2"})
+class AccountServiceRetryTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        RetryMetricsListener retryMetricsListener(MeterRegistry meterRegistry) {
+            return new RetryMetricsListener(meterRegistry);
+        }
+    }
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @MockBean
+    AccountRepository accountRepository;
+
+    @MockBean
+    TransactionService transactionService;
+
+    @MockBean
+    AccountLockManager accountLockManager;
+
+    @MockBean
+    AccountOwnershipCache accountOwnershipCache;
+
+    @MockBean
+    AccountBalanceCache accountBalanceCache;
+
+    @MockBean
+    IdempotencyService idempotencyService;
+
+    @Autowired
+    AccountService accountService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(accountRepository.findByIdAndUserId(1, 10)).thenAnswer(invocation -> Optional.of(buildAccount()));
+    }
+
+    @DisplayName("Withdraw money - Conflict on first attempt - Retried in a new transaction")
+    @Test
+    void withdrawRetriedAfterConflict() {
+        when(accountRepository.save(any()))
+                .thenThrow(new OptimisticLockingFailureException("Account was changed"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        accountService.withdraw(1, 10, BigDecimal.valueOf(200));
+
+        verify(accountRepository, times(2)).findByIdAndUserId(1, 10);
+        verify(transactionService, times(1)).saveTransaction(any());
+
+        // Every attempt runs in its own transaction, the failed one is rolled back
+        InOrder inOrder = inOrder(transactionManager);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(transactionManager).rollback(any());
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(transactionManager).commit(any());
+
+        assertEquals(1, count("bank.account.operations"));
+        assertEquals(1, count("bank.account.conflicts"));
+        assertEquals(0, count("bank.account.retries.exhausted"));
+    }
+
+    @DisplayName("Withdraw money - Conflict on every attempt - Retries exhausted")
+    @Test
+    void withdrawRetriesExhausted() {
+        when(accountRepository.save(any())).thenThrow(new OptimisticLockingFailureException("Account was changed"));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> accountService.withdraw(1, 10, BigDecimal.valueOf(200)));
+
+        verify(accountRepository, times(3)).findByIdAndUserId(1, 10);
+        verify(transactionManager, times(3)).rollback(any());
+        verify(transactionManager, never()).commit(any());
+
+        assertEquals(1, count("bank.account.operations"));
+        assertEquals(3, count("bank.account.conflicts"));
+        assertEquals(1, count("bank.account.retries.exhausted"));
+    }
+
+    private double count(String name) {
+        return meterRegistry.find(name).tag("operation", "withdraw").counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    private Account buildAccount() {
+        return Account.builder()
+                .id(1)
+                .openingDate(LocalDate.now())
+                .balance(BigDecimal.valueOf(4500))
+                .build();
+    }
+}
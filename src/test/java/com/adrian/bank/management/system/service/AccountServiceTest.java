@@ -1,25 +1,30 @@
 package com.adrian.bank.management.system.service;
 
 import com.adrian.bank.management.system.dto.AccountInformation;
+import com.adrian.bank.management.system.dto.BatchTransferStatus;
 import com.adrian.bank.management.system.dto.TransferRequest;
 import com.adrian.bank.management.system.entity.Account;
+import com.adrian.bank.management.system.entity.TransactionType;
 import com.adrian.bank.management.system.repository.AccountRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,43 +36,104 @@ class AccountServiceTest {
     @Mock
     TransactionService transactionService;
 
+    @Mock
+    AccountOwnershipCache accountOwnershipCache;
+
+    @Mock
+    AccountBalanceCache accountBalanceCache;
+
+    @Mock
+    IdempotencyService idempotencyService;
+
     AccountService accountService;
 
     @BeforeEach
     void setUp() {
-        accountService = new AccountService(accountRepository, transactionService);
+        accountService = new AccountService(accountRepository, transactionService,
+                new AccountLockManager(16, 1000), accountOwnershipCache, accountBalanceCache,
+                idempotencyService);
+        ReflectionTestUtils.setField(accountService, "lockingMode", AccountLockingMode.ATOMIC);
     }
 
     @DisplayName("Get account information")
     @Test
     void getAccount() {
-        String username = "customer";
+        Integer userId = 10;
         Integer accountId = 1;
 
-        Account accountFromDb = buildAccount();
+        AccountInformation cachedAccount = new AccountInformation(accountId, LocalDate.now(), BigDecimal.valueOf(200));
 
-        when(accountRepository.findByIdAndUserUsername(accountId, username))
-                .thenReturn(Optional.of(accountFromDb));
+        when(accountBalanceCache.getAccount(accountId)).thenReturn(cachedAccount);
 
-        AccountInformation accountInformation = accountService.getAccount(username, accountId);
+        AccountInformation accountInformation = accountService.getAccount(userId, accountId);
 
-        assertNotNull(accountInformation);
-        assertEquals(accountFromDb.getBalance(), accountInformation.balance());
-        assertEquals(accountFromDb.getId(), accountInformation.id());
-        assertEquals(accountFromDb.getOpeningDate(), accountInformation.openingDate());
+        assertEquals(cachedAccount, accountInformation);
+        verify(accountOwnershipCache, times(1)).checkAccountOwnership(userId, accountId);
     }
 
     @DisplayName("Get account information - Failed - Account not found")
     @Test
     void getAccountAccountNotFound() {
-        String username = "customer";
+        Integer userId = 10;
         Integer accountId = 1;
 
-        when(accountRepository.findByIdAndUserUsername(accountId, username))
-                .thenReturn(Optional.empty());
+        when(accountBalanceCache.getAccount(accountId)).thenReturn(null);
 
         assertThrows(ResponseStatusException.class,
-                () -> accountService.getAccount(username, accountId));
+                () -> accountService.getAccount(userId, accountId));
+    }
+
+    @DisplayName("Make transfer")
+    @Test
+    void makeTransfer() {
+        TransferRequest transfer = new TransferRequest(2, BigDecimal.valueOf(200));
+
+        when(accountRepository.debit(1, 10, transfer.value())).thenReturn(1);
+        when(accountRepository.credit(2, transfer.value())).thenReturn(1);
+
+        accountService.makeTransfer(10, 1, transfer);
+
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).debit(1, 10, transfer.value());
+        inOrder.verify(accountRepository).credit(2, transfer.value());
+
+        verify(accountRepository, times(0)).findAllByIdForUpdate(anyCollection());
+        verify(transactionService, times(1)).saveTransactions(argThat(legs -> legs.size() == 2
+                && legs.get(0).getType() == TransactionType.TRANSFER
+                && legs.get(1).getType() == TransactionType.INCOMING_TRANSFER
+                && legs.get(0).getTransferId().equals(legs.get(1).getTransferId())));
+        verify(idempotencyService, times(1)).recordKey();
+        verify(accountBalanceCache, times(1)).evictAfterCommit(1, 2);
+    }
+
+    @DisplayName("Make transfer - Receiver account has lower id - rows updated in ascending id order")
+    @Test
+    void makeTransferReceiverWithLowerId() {
+        TransferRequest transfer = new TransferRequest(1, BigDecimal.valueOf(200));
+
+        when(accountRepository.debit(2, 10, transfer.value())).thenReturn(1);
+        when(accountRepository.credit(1, transfer.value())).thenReturn(1);
+
+        accountService.makeTransfer(10, 2, transfer);
+
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).credit(1, transfer.value());
+        inOrder.verify(accountRepository).debit(2, 10, transfer.value());
+    }
+
+    @DisplayName("Make transfer - Sender doesn't have enough money on account")
+    @Test
+    void makeTransferSenderDoesntHaveEnoughMoney() {
+        TransferRequest transfer = new TransferRequest(2, BigDecimal.valueOf(200));
+
+        when(accountRepository.debit(anyInt(), anyInt(), any())).thenReturn(0);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> accountService.makeTransfer(10, 1, transfer));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(accountRepository, times(0)).credit(anyInt(), any());
+        verify(transactionService, times(0)).saveTransactions(any());
     }
 
     @DisplayName("Make transfer - Sender's account not found")
@@ -75,95 +141,180 @@ class AccountServiceTest {
     void makeTransferSenderAccountNotFound() {
         TransferRequest transfer = new TransferRequest(2, BigDecimal.valueOf(200));
 
-        when(accountRepository.findByIdAndUserUsername(anyInt(), anyString())).thenReturn(Optional.empty());
+        when(accountRepository.debit(anyInt(), anyInt(), any())).thenReturn(0);
+        doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND))
+                .when(accountOwnershipCache).checkAccountOwnership(anyInt(), anyInt());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> accountService.makeTransfer(10, 1, transfer));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        verify(transactionService, times(0)).saveTransactions(any());
+    }
+
+    @DisplayName("Make transfer - Receiver account doesn't exist")
+    @Test
+    void makeTransferReceiverAccountDoesntExist() {
+        TransferRequest transfer = new TransferRequest(2, BigDecimal.valueOf(200));
+
+        when(accountRepository.debit(anyInt(), anyInt(), any())).thenReturn(1);
+        when(accountRepository.credit(anyInt(), any())).thenReturn(0);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> accountService.makeTransfer(10, 1, transfer));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        verify(transactionService, times(0)).saveTransactions(any());
+    }
+
+    @DisplayName("Withdraw money")
+    @Test
+    void withdraw() {
+        when(accountRepository.debit(anyInt(), anyInt(), any())).thenReturn(1);
+
+        accountService.withdraw(1, 10, BigDecimal.valueOf(200));
+
+        verify(accountRepository, times(1)).debit(1, 10, BigDecimal.valueOf(200));
+        verify(accountOwnershipCache, times(0)).checkAccountOwnership(anyInt(), anyInt());
+        verify(accountRepository, times(0)).save(any());
+        verify(transactionService, times(1)).saveTransaction(any());
+        verify(accountBalanceCache, times(1)).evictAfterCommit(1);
+    }
+
+    @DisplayName("Withdraw money - there's not enough money on user account")
+    @Test
+    void withdrawNotEnoughMoney() {
+        when(accountRepository.debit(anyInt(), anyInt(), any())).thenReturn(0);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                accountService.withdraw(1, 10, BigDecimal.valueOf(200)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(transactionService, times(0)).saveTransaction(any());
+    }
+
+    @DisplayName("Deposit money")
+    @Test
+    void deposit() {
+        when(accountRepository.credit(anyInt(), anyInt(), any())).thenReturn(1);
+
+        accountService.deposit(1, 10, BigDecimal.valueOf(200));
+
+        verify(accountRepository, times(1)).credit(1, 10, BigDecimal.valueOf(200));
+        verify(transactionService, times(1)).saveTransaction(any());
+        verify(accountBalanceCache, times(1)).evictAfterCommit(1);
+    }
+
+    @DisplayName("Deposit money - Account not found")
+    @Test
+    void depositAccountNotFound() {
+        when(accountRepository.credit(anyInt(), anyInt(), any())).thenReturn(0);
+
+        assertThrows(ResponseStatusException.class, () ->
+                accountService.deposit(1, 10, BigDecimal.valueOf(200)));
+
+        verify(transactionService, times(0)).saveTransaction(any());
+        verify(accountBalanceCache, times(0)).evictAfterCommit(any());
+    }
+
+    @DisplayName("Make transfer - Sender's account not found - Pessimistic locking mode")
+    @Test
+    void makeTransferSenderAccountNotFoundPessimistic() {
+        usePessimisticLocking();
+
+        TransferRequest transfer = new TransferRequest(2, BigDecimal.valueOf(200));
+
+        doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND))
+                .when(accountOwnershipCache).checkAccountOwnership(anyInt(), anyInt());
 
         assertThrows(ResponseStatusException.class,
-                () -> accountService.makeTransfer("username", 1, transfer));
+                () -> accountService.makeTransfer(10, 1, transfer));
 
-        verify(accountRepository, times(0)).findById(anyInt());
+        verify(accountRepository, times(0)).findAllByIdForUpdate(anyCollection());
         verify(accountRepository, times(0)).saveAll(anyCollection());
-        verify(transactionService, times(0)).saveTransaction(any());
+        verify(transactionService, times(0)).saveTransactions(any());
     }
 
-    @DisplayName("Make transfer - Sender doesn't have enough money on account")
+    @DisplayName("Make transfer - Sender doesn't have enough money on account - Pessimistic locking mode")
     @Test
-    void makeTransferSenderDoesntHabeEnoughMoney() {
+    void makeTransferSenderDoesntHabeEnoughMoneyPessimistic() {
+        usePessimisticLocking();
+
         TransferRequest transfer = new TransferRequest(2, BigDecimal.valueOf(200));
         Account senderAccount = buildAccount();
         senderAccount.setBalance(BigDecimal.valueOf(0));
 
-        when(accountRepository.findByIdAndUserUsername(anyInt(), anyString()))
-                .thenReturn(Optional.of(senderAccount));
+        when(accountRepository.findAllByIdForUpdate(anyCollection()))
+                .thenReturn(List.of(senderAccount, buildAccount(2)));
 
         assertThrows(ResponseStatusException.class,
-                () -> accountService.makeTransfer("username", 1, transfer));
+                () -> accountService.makeTransfer(10, 1, transfer));
 
-        verify(accountRepository, times(0)).findById(anyInt());
         verify(accountRepository, times(0)).saveAll(anyCollection());
-        verify(transactionService, times(0)).saveTransaction(any());
+        verify(transactionService, times(0)).saveTransactions(any());
     }
 
-    @DisplayName("Make transfer - Receiver account doesn't exist")
+    @DisplayName("Make transfer - Receiver account doesn't exist - Pessimistic locking mode")
     @Test
-    void makeTransferReceiverAccountDoesntExist() {
+    void makeTransferReceiverAccountDoesntExistPessimistic() {
+        usePessimisticLocking();
+
         TransferRequest transfer = new TransferRequest(2, BigDecimal.valueOf(200));
         Account senderAccount = buildAccount();
 
-        when(accountRepository.findByIdAndUserUsername(anyInt(), anyString()))
-                .thenReturn(Optional.of(senderAccount));
-
-        when(accountRepository.findById(anyInt()))
-                .thenReturn(Optional.empty());
+        when(accountRepository.findAllByIdForUpdate(anyCollection()))
+                .thenReturn(List.of(senderAccount));
 
         assertThrows(ResponseStatusException.class,
-                () -> accountService.makeTransfer("username", 1, transfer));
+                () -> accountService.makeTransfer(10, 1, transfer));
 
-        verify(accountRepository, times(1)).findById(anyInt());
+        verify(accountRepository, times(1)).findAllByIdForUpdate(anyCollection());
         verify(accountRepository, times(0)).saveAll(anyCollection());
-        verify(transactionService, times(0)).saveTransaction(any());
+        verify(transactionService, times(0)).saveTransactions(any());
     }
 
-    @DisplayName("Make transfer")
+    @DisplayName("Make transfer - Pessimistic locking mode")
     @Test
-    void makeTransfer() {
+    void makeTransferPessimistic() {
+        usePessimisticLocking();
+
         TransferRequest transfer = new TransferRequest(2, BigDecimal.valueOf(200));
 
         Account senderAccount = buildAccount();
         senderAccount.setBalance(BigDecimal.valueOf(200));
 
-        Account receiverAccount = buildAccount();
+        Account receiverAccount = buildAccount(2);
         receiverAccount.setBalance(BigDecimal.valueOf(0));
 
-        when(accountRepository.findByIdAndUserUsername(anyInt(), anyString()))
-                .thenReturn(Optional.of(senderAccount));
+        when(accountRepository.findAllByIdForUpdate(anyCollection()))
+                .thenReturn(List.of(senderAccount, receiverAccount));
 
-        when(accountRepository.findById(anyInt()))
-                .thenReturn(Optional.of(receiverAccount));
-
-        accountService.makeTransfer("username", 1, transfer);
+        accountService.makeTransfer(10, 1, transfer);
 
         assertEquals(BigDecimal.valueOf(0), senderAccount.getBalance());
         assertEquals(BigDecimal.valueOf(200), receiverAccount.getBalance());
 
-        verify(accountRepository, times(1)).findById(anyInt());
+        verify(accountRepository, times(1)).findAllByIdForUpdate(List.of(1, 2));
         verify(accountRepository, times(1)).saveAll(anyCollection());
-        verify(transactionService, times(1)).saveTransaction(any());
+        verify(transactionService, times(1)).saveTransactions(any());
     }
 
-    @DisplayName("Withdraw money - there's not enough money on user account")
+    @DisplayName("Withdraw money - there's not enough money on user account - Pessimistic locking mode")
     @Test
-    void withdrawNotEnoughMoney() {
+    void withdrawNotEnoughMoneyPessimistic() {
+        usePessimisticLocking();
+
         Account account = buildAccount();
         account.setBalance(BigDecimal.valueOf(0));
 
-        when(accountRepository.findByIdAndUserUsername(anyInt(), anyString()))
+        when(accountRepository.findByIdForUpdate(anyInt()))
                 .thenReturn(Optional.of(account));
 
         assertThrows(ResponseStatusException.class, () ->
-                accountService.withdraw(1, "username", BigDecimal.valueOf(200)));
+                accountService.withdraw(1, 10, BigDecimal.valueOf(200)));
 
         verify(accountRepository, times(1))
-                .findByIdAndUserUsername(anyInt(), anyString());
+                .findByIdForUpdate(anyInt());
 
         verify(accountRepository, times(0))
                 .save(any());
@@ -172,21 +323,41 @@ class AccountServiceTest {
                 .saveTransaction(any());
     }
 
-    @DisplayName("Withdraw money")
+    @DisplayName("Withdraw money - Account not found - Pessimistic locking mode")
     @Test
-    void withdraw() {
+    void withdrawAccountNotFoundPessimistic() {
+        usePessimisticLocking();
+
+        doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND))
+                .when(accountOwnershipCache).checkAccountOwnership(anyInt(), anyInt());
+
+        assertThrows(ResponseStatusException.class, () ->
+                accountService.withdraw(1, 10, BigDecimal.valueOf(200)));
+
+        verify(accountRepository, times(0))
+                .findByIdForUpdate(anyInt());
+
+        verify(transactionService, times(0))
+                .saveTransaction(any());
+    }
+
+    @DisplayName("Withdraw money - Pessimistic locking mode")
+    @Test
+    void withdrawPessimistic() {
+        usePessimisticLocking();
+
         Account account = buildAccount();
         account.setBalance(BigDecimal.valueOf(200));
 
-        when(accountRepository.findByIdAndUserUsername(anyInt(), anyString()))
+        when(accountRepository.findByIdForUpdate(anyInt()))
                 .thenReturn(Optional.of(account));
 
-        accountService.withdraw(1, "username", BigDecimal.valueOf(200));
+        accountService.withdraw(1, 10, BigDecimal.valueOf(200));
 
         assertEquals(BigDecimal.ZERO, account.getBalance());
 
         verify(accountRepository, times(1))
-                .findByIdAndUserUsername(anyInt(), anyString());
+                .findByIdForUpdate(anyInt());
 
         verify(accountRepository, times(1))
                 .save(any());
@@ -195,21 +366,45 @@ class AccountServiceTest {
                 .saveTransaction(any());
     }
 
-    @DisplayName("Deposit money")
+    @DisplayName("Withdraw money - Optimistic locking mode")
     @Test
-    void deposit() {
+    void withdrawOptimistic() {
+        ReflectionTestUtils.setField(accountService, "lockingMode", AccountLockingMode.OPTIMISTIC);
+
+        Account account = buildAccount();
+        account.setBalance(BigDecimal.valueOf(200));
+
+        when(accountRepository.findByIdAndUserId(anyInt(), anyInt()))
+                .thenReturn(Optional.of(account));
+
+        accountService.withdraw(1, 10, BigDecimal.valueOf(200));
+
+        assertEquals(BigDecimal.ZERO, account.getBalance());
+
+        verify(accountRepository, times(0))
+                .findByIdForUpdate(anyInt());
+
+        verify(accountRepository, times(1))
+                .save(any());
+    }
+
+    @DisplayName("Deposit money - Pessimistic locking mode")
+    @Test
+    void depositPessimistic() {
+        usePessimisticLocking();
+
         Account account = buildAccount();
         account.setBalance(BigDecimal.ZERO);
 
-        when(accountRepository.findByIdAndUserUsername(anyInt(), anyString()))
+        when(accountRepository.findByIdForUpdate(anyInt()))
                 .thenReturn(Optional.of(account));
 
-        accountService.deposit(1, "username", BigDecimal.valueOf(200));
+        accountService.deposit(1, 10, BigDecimal.valueOf(200));
 
         assertEquals(BigDecimal.valueOf(200), account.getBalance());
 
         verify(accountRepository, times(1))
-                .findByIdAndUserUsername(anyInt(), anyString());
+                .findByIdForUpdate(anyInt());
 
         verify(accountRepository, times(1))
                 .save(any());
@@ -218,11 +413,140 @@ class AccountServiceTest {
                 .saveTransaction(any());
     }
 
+    @DisplayName("Make transfers - Rows updated in ascending id order, failed transfers corrected")
+    @Test
+    void makeTransfersAtomic() {
+        List<TransferRequest> transfers = List.of(
+                new TransferRequest(3, BigDecimal.valueOf(100)),
+                new TransferRequest(1, BigDecimal.valueOf(50)),
+                new TransferRequest(1, BigDecimal.valueOf(70)));
+
+        when(accountRepository.debit(2, 10, BigDecimal.valueOf(100))).thenReturn(1);
+        when(accountRepository.debit(2, 10, BigDecimal.valueOf(50))).thenReturn(1);
+        when(accountRepository.debit(2, 10, BigDecimal.valueOf(70))).thenReturn(0);
+        when(accountRepository.credit(anyInt(), any())).thenReturn(1);
+
+        BatchTransferStatus[] statuses = accountService.makeTransfers(10, 2, transfers, false);
+
+        assertArrayEquals(new BatchTransferStatus[]{BatchTransferStatus.COMPLETED, BatchTransferStatus.COMPLETED,
+                BatchTransferStatus.INSUFFICIENT_FUNDS}, statuses);
+
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).credit(1, BigDecimal.valueOf(120));
+        inOrder.verify(accountRepository, times(3)).debit(eq(2), eq(10), any());
+        inOrder.verify(accountRepository).credit(1, BigDecimal.valueOf(-70));
+        inOrder.verify(accountRepository).credit(3, BigDecimal.valueOf(100));
+
+        verify(transactionService, times(1)).saveTransactions(argThat(transactions -> transactions.size() == 4));
+        verify(accountRepository, times(0)).findAllByIdForUpdate(anyCollection());
+    }
+
+    @DisplayName("Make transfers - Pessimistic locking mode")
+    @Test
+    void makeTransfersPessimistic() {
+        usePessimisticLocking();
+
+        Account sender = buildAccount(1);
+        sender.setBalance(BigDecimal.valueOf(300));
+        Account receiver = buildAccount(2);
+        receiver.setBalance(BigDecimal.ZERO);
+
+        List<TransferRequest> transfers = List.of(
+                new TransferRequest(2, BigDecimal.valueOf(200)),
+                new TransferRequest(2, BigDecimal.valueOf(200)),
+                new TransferRequest(2, BigDecimal.valueOf(100)));
+
+        when(accountRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(sender, receiver));
+
+        BatchTransferStatus[] statuses = accountService.makeTransfers(10, 1, transfers, false);
+
+        assertArrayEquals(new BatchTransferStatus[]{BatchTransferStatus.COMPLETED,
+                BatchTransferStatus.INSUFFICIENT_FUNDS, BatchTransferStatus.COMPLETED}, statuses);
+        assertEquals(0, BigDecimal.ZERO.compareTo(sender.getBalance()));
+        assertEquals(0, BigDecimal.valueOf(300).compareTo(receiver.getBalance()));
+
+        verify(accountRepository, times(1)).findAllByIdForUpdate(Set.of(1, 2));
+        verify(transactionService, times(1)).saveTransactions(argThat(transactions -> transactions.size() == 4));
+        verify(accountRepository, times(0)).debit(anyInt(), anyInt(), any());
+    }
+
+    @DisplayName("Make transfers - Pessimistic locking mode - Only rows are locked, not lock stripes")
+    @Test
+    void makeTransfersPessimisticLocksRowsOnly() {
+        AccountLockManager accountLockManager = mock(AccountLockManager.class);
+        accountService = new AccountService(accountRepository, transactionService, accountLockManager,
+                accountOwnershipCache, accountBalanceCache, idempotencyService);
+        usePessimisticLocking();
+
+        Account sender = buildAccount(1);
+        sender.setBalance(BigDecimal.valueOf(300));
+        Account receiver = buildAccount(2);
+        receiver.setBalance(BigDecimal.ZERO);
+
+        when(accountRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(sender, receiver));
+
+        accountService.makeTransfers(10, 1, List.of(new TransferRequest(2, BigDecimal.valueOf(100))), false);
+
+        verify(accountRepository, times(1)).findAllByIdForUpdate(Set.of(1, 2));
+        verifyNoInteractions(accountLockManager);
+    }
+
+    @DisplayName("Make transfers - Pessimistic locking mode - Receiver deleted before it was locked")
+    @Test
+    void makeTransfersPessimisticReceiverDeleted() {
+        usePessimisticLocking();
+
+        Account sender = buildAccount(1);
+        sender.setBalance(BigDecimal.valueOf(300));
+        Account receiver = buildAccount(2);
+        receiver.setBalance(BigDecimal.ZERO);
+
+        List<TransferRequest> transfers = List.of(
+                new TransferRequest(3, BigDecimal.valueOf(100)),
+                new TransferRequest(2, BigDecimal.valueOf(100)));
+
+        when(accountRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(sender, receiver));
+
+        BatchTransferStatus[] statuses = accountService.makeTransfers(10, 1, transfers, false);
+
+        assertArrayEquals(new BatchTransferStatus[]{BatchTransferStatus.RECEIVER_NOT_FOUND,
+                BatchTransferStatus.COMPLETED}, statuses);
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(sender.getBalance()));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(receiver.getBalance()));
+
+        verify(transactionService, times(1)).saveTransactions(argThat(transactions -> transactions.size() == 2));
+    }
+
+    @DisplayName("Make transfers - Optimistic locking mode - Accounts loaded without locks")
+    @Test
+    void makeTransfersOptimistic() {
+        ReflectionTestUtils.setField(accountService, "lockingMode", AccountLockingMode.OPTIMISTIC);
+
+        Account sender = buildAccount(1);
+        Account receiver = buildAccount(2);
+
+        when(accountRepository.findAllById(anyIterable())).thenReturn(List.of(sender, receiver));
+
+        BatchTransferStatus[] statuses = accountService.makeTransfers(10, 1,
+                List.of(new TransferRequest(2, BigDecimal.valueOf(500))), false);
+
+        assertArrayEquals(new BatchTransferStatus[]{BatchTransferStatus.COMPLETED}, statuses);
+        verify(accountRepository, times(0)).findAllByIdForUpdate(anyCollection());
+    }
+
+    private void usePessimisticLocking() {
+        ReflectionTestUtils.setField(accountService, "lockingMode", AccountLockingMode.PESSIMISTIC);
+    }
+
     private Account buildAccount() {
+        return buildAccount(1);
+    }
+
+    private Account buildAccount(Integer id) {
         return Account.builder()
-                .id(1)
+                .id(id)
                 .openingDate(LocalDate.now())
                 .balance(BigDecimal.valueOf(4500))
                 .build();
     }
-}
\ No newline at end of file
+}
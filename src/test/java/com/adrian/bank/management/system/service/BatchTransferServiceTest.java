@@ -0,0 +1,186 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.dto.*;
+import com.adrian.bank.management.system.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchTransferServiceTest {
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    AccountOwnershipCache accountOwnershipCache;
+
+    @Mock
+    AccountService accountService;
+
+    BatchTransferService batchTransferService;
+
+    @BeforeEach
+    void setUp() {
+        batchTransferService = new BatchTransferService(accountRepository, accountOwnershipCache, accountService);
+        ReflectionTestUtils.setField(batchTransferService, "chunkSize", 500);
+    }
+
+    @DisplayName("Make batch transfer - Best effort - Failed transfers are skipped")
+    @Test
+    void makeBatchTransferBestEffort() {
+        BatchTransferRequest batch = new BatchTransferRequest(List.of(
+                new TransferRequest(2, BigDecimal.valueOf(200)),
+                new TransferRequest(3, BigDecimal.valueOf(50)),
+                new TransferRequest(2, BigDecimal.valueOf(200)),
+                new TransferRequest(2, BigDecimal.valueOf(100))),
+                BatchTransferMode.BEST_EFFORT);
+
+        when(accountRepository.findExistingIds(anyCollection())).thenReturn(List.of(2));
+        when(accountService.makeTransfers(eq(10), eq(1), anyList(), eq(false))).thenReturn(new BatchTransferStatus[]{
+                BatchTransferStatus.COMPLETED, BatchTransferStatus.INSUFFICIENT_FUNDS, BatchTransferStatus.COMPLETED});
+
+        List<BatchTransferResult> results = batchTransferService.makeBatchTransfer(10, 1, batch);
+
+        assertEquals(List.of(BatchTransferStatus.COMPLETED, BatchTransferStatus.RECEIVER_NOT_FOUND,
+                        BatchTransferStatus.INSUFFICIENT_FUNDS, BatchTransferStatus.COMPLETED),
+                results.stream().map(BatchTransferResult::status).toList());
+
+        // Transfer to the missing receiver is not passed on
+        verify(accountService, times(1)).makeTransfers(10, 1, List.of(
+                batch.transfers().get(0), batch.transfers().get(2), batch.transfers().get(3)), false);
+    }
+
+    @DisplayName("Make batch transfer - Best effort - Every chunk runs in its own transaction")
+    @Test
+    void makeBatchTransferBestEffortChunks() {
+        ReflectionTestUtils.setField(batchTransferService, "chunkSize", 2);
+
+        BatchTransferRequest batch = new BatchTransferRequest(List.of(
+                new TransferRequest(2, BigDecimal.TEN),
+                new TransferRequest(2, BigDecimal.TEN),
+                new TransferRequest(2, BigDecimal.TEN)),
+                BatchTransferMode.BEST_EFFORT);
+
+        when(accountRepository.findExistingIds(anyCollection())).thenReturn(List.of(2));
+        when(accountService.makeTransfers(eq(10), eq(1), anyList(), eq(false)))
+                .thenAnswer(invocation -> {
+                    BatchTransferStatus[] statuses = new BatchTransferStatus[invocation.<List<?>>getArgument(2).size()];
+                    Arrays.fill(statuses, BatchTransferStatus.COMPLETED);
+                    return statuses;
+                });
+
+        List<BatchTransferResult> results = batchTransferService.makeBatchTransfer(10, 1, batch);
+
+        assertTrue(results.stream().allMatch(result -> result.status() == BatchTransferStatus.COMPLETED));
+        verify(accountService, times(1)).makeTransfers(eq(10), eq(1), argThat(chunk -> chunk.size() == 2), eq(false));
+        verify(accountService, times(1)).makeTransfers(eq(10), eq(1), argThat(chunk -> chunk.size() == 1), eq(false));
+    }
+
+    @DisplayName("Make batch transfer - Best effort - Failed chunk is reported and the next chunk still runs")
+    @Test
+    void makeBatchTransferBestEffortChunkFailed() {
+        ReflectionTestUtils.setField(batchTransferService, "chunkSize", 2);
+
+        BatchTransferRequest batch = new BatchTransferRequest(List.of(
+                new TransferRequest(2, BigDecimal.ONE),
+                new TransferRequest(3, BigDecimal.ONE),
+                new TransferRequest(2, BigDecimal.TEN)),
+                BatchTransferMode.BEST_EFFORT);
+
+        when(accountRepository.findExistingIds(anyCollection())).thenReturn(List.of(2));
+        when(accountService.makeTransfers(10, 1, List.of(batch.transfers().get(0)), false))
+                .thenThrow(new CannotAcquireLockException("Lock wait timeout"));
+        when(accountService.makeTransfers(10, 1, List.of(batch.transfers().get(2)), false))
+                .thenReturn(new BatchTransferStatus[]{BatchTransferStatus.COMPLETED});
+
+        List<BatchTransferResult> results = batchTransferService.makeBatchTransfer(10, 1, batch);
+
+        assertEquals(List.of(BatchTransferStatus.FAILED, BatchTransferStatus.RECEIVER_NOT_FOUND,
+                        BatchTransferStatus.COMPLETED),
+                results.stream().map(BatchTransferResult::status).toList());
+    }
+
+    @DisplayName("Make batch transfer - Transfer to the sending account is rejected")
+    @Test
+    void makeBatchTransferSameAccount() {
+        BatchTransferRequest batch = new BatchTransferRequest(List.of(
+                new TransferRequest(2, BigDecimal.TEN),
+                new TransferRequest(1, BigDecimal.TEN)),
+                BatchTransferMode.ALL_OR_NOTHING);
+
+        when(accountRepository.findExistingIds(anyCollection())).thenReturn(List.of(1, 2));
+
+        List<BatchTransferResult> results = batchTransferService.makeBatchTransfer(10, 1, batch);
+
+        assertEquals(List.of(BatchTransferStatus.ABORTED, BatchTransferStatus.SAME_ACCOUNT),
+                results.stream().map(BatchTransferResult::status).toList());
+        verifyNoInteractions(accountService);
+    }
+
+    @DisplayName("Make batch transfer - All or nothing - Insufficient funds rolls back whole batch")
+    @Test
+    void makeBatchTransferAllOrNothingInsufficientFunds() {
+        BatchTransferRequest batch = new BatchTransferRequest(List.of(
+                new TransferRequest(2, BigDecimal.valueOf(200)),
+                new TransferRequest(2, BigDecimal.valueOf(200)),
+                new TransferRequest(2, BigDecimal.valueOf(200))),
+                BatchTransferMode.ALL_OR_NOTHING);
+
+        when(accountRepository.findExistingIds(anyCollection())).thenReturn(List.of(2));
+        when(accountService.makeTransfers(10, 1, batch.transfers(), true)).thenReturn(new BatchTransferStatus[]{
+                BatchTransferStatus.COMPLETED, BatchTransferStatus.INSUFFICIENT_FUNDS, null});
+
+        List<BatchTransferResult> results = batchTransferService.makeBatchTransfer(10, 1, batch);
+
+        assertEquals(List.of(BatchTransferStatus.ABORTED, BatchTransferStatus.INSUFFICIENT_FUNDS,
+                        BatchTransferStatus.ABORTED),
+                results.stream().map(BatchTransferResult::status).toList());
+    }
+
+    @DisplayName("Make batch transfer - All or nothing - Missing receiver aborts batch before any update")
+    @Test
+    void makeBatchTransferAllOrNothingReceiverNotFound() {
+        BatchTransferRequest batch = new BatchTransferRequest(List.of(
+                new TransferRequest(2, BigDecimal.TEN),
+                new TransferRequest(3, BigDecimal.TEN)),
+                BatchTransferMode.ALL_OR_NOTHING);
+
+        when(accountRepository.findExistingIds(anyCollection())).thenReturn(List.of(2));
+
+        List<BatchTransferResult> results = batchTransferService.makeBatchTransfer(10, 1, batch);
+
+        assertEquals(List.of(BatchTransferStatus.ABORTED, BatchTransferStatus.RECEIVER_NOT_FOUND),
+                results.stream().map(BatchTransferResult::status).toList());
+        verifyNoInteractions(accountService);
+    }
+
+    @DisplayName("Make batch transfer - Failed - Sender account not found")
+    @Test
+    void makeBatchTransferSenderAccountNotFound() {
+        BatchTransferRequest batch = new BatchTransferRequest(List.of(new TransferRequest(2, BigDecimal.TEN)),
+                BatchTransferMode.BEST_EFFORT);
+
+        doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND))
+                .when(accountOwnershipCache).checkAccountOwnership(10, 1);
+
+        assertThrows(ResponseStatusException.class,
+                () -> batchTransferService.makeBatchTransfer(10, 1, batch));
+        verifyNoInteractions(accountService);
+    }
+}
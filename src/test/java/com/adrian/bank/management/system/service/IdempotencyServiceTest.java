@@ -0,0 +1,200 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.entity.IdempotencyKey;
+import com.adrian.bank.management.system.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    IdempotencyKeyRepository idempotencyKeyRepository;
+
+    MeterRegistry meterRegistry;
+
+    IdempotencyService idempotencyService;
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyService = new IdempotencyService(idempotencyKeyRepository, meterRegistry, 100, 24, 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        idempotencyService.shutdown();
+    }
+
+    @DisplayName("Execute - Operation runs once, the key is recorded in its transaction")
+    @Test
+    void execute() {
+        AtomicInteger runs = new AtomicInteger();
+
+        boolean first = idempotencyService.execute(10, "key-1", "deposit:1:100", () -> {
+            runs.incrementAndGet();
+            idempotencyService.recordKey();
+        });
+        boolean second = idempotencyService.execute(10, "key-1", "deposit:1:100", runs::incrementAndGet);
+
+        assertFalse(first);
+        assertTrue(second);
+        assertEquals(1, runs.get());
+        verify(idempotencyKeyRepository, times(1)).save(argThat(key -> key.getId().equals("10:key-1")
+                && key.getFingerprint().equals("deposit:1:100")));
+        verify(idempotencyKeyRepository, times(1)).findById("10:key-1");
+        assertEquals(1, meterRegistry.get("bank.idempotency.replays").counter().count());
+    }
+
+    @DisplayName("Execute - Without a key the operation always runs and no key is recorded")
+    @Test
+    void executeWithoutKey() {
+        AtomicInteger runs = new AtomicInteger();
+
+        idempotencyService.execute(10, null, "deposit:1:100", runs::incrementAndGet);
+        idempotencyService.execute(10, null, "deposit:1:100", () -> {
+            runs.incrementAndGet();
+            idempotencyService.recordKey();
+        });
+
+        assertEquals(2, runs.get());
+        verifyNoInteractions(idempotencyKeyRepository);
+    }
+
+    @DisplayName("Execute - Key committed earlier is replayed from the table")
+    @Test
+    void executeStoredKey() {
+        when(idempotencyKeyRepository.findById("10:key-1")).thenReturn(Optional.of(buildKey("deposit:1:100")));
+
+        assertTrue(idempotencyService.execute(10, "key-1", "deposit:1:100", () -> fail("Operation was run")));
+    }
+
+    @DisplayName("Execute - Failed - Key was used for a different request")
+    @Test
+    void executeFingerprintMismatch() {
+        when(idempotencyKeyRepository.findById("10:key-1")).thenReturn(Optional.of(buildKey("deposit:1:100")));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute(10, "key-1", "deposit:1:200", () -> fail("Operation was run")));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatusCode());
+    }
+
+    @DisplayName("Execute - Keys of different users don't collide")
+    @Test
+    void executeKeyScopedByUser() {
+        AtomicInteger runs = new AtomicInteger();
+
+        idempotencyService.execute(10, "key-1", "deposit:1:100", runs::incrementAndGet);
+        idempotencyService.execute(11, "key-1", "deposit:2:100", runs::incrementAndGet);
+
+        assertEquals(2, runs.get());
+    }
+
+    @DisplayName("Execute - Failed operation is run again by the retry")
+    @Test
+    void executeAfterFailure() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThrows(ResponseStatusException.class, () -> idempotencyService.execute(10, "key-1", "withdraw:1:100",
+                () -> {
+                    runs.incrementAndGet();
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+                }));
+
+        assertFalse(idempotencyService.execute(10, "key-1", "withdraw:1:100", runs::incrementAndGet));
+        assertEquals(2, runs.get());
+    }
+
+    @DisplayName("Execute - Concurrent duplicate waits for the in-flight operation and is replayed")
+    @Test
+    void executeConcurrentDuplicate() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        Future<Boolean> first = executor.submit(() -> idempotencyService.execute(10, "key-1", "deposit:1:100",
+                () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    await(finish);
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Boolean> duplicate = CompletableFuture.supplyAsync(
+                () -> idempotencyService.execute(10, "key-1", "deposit:1:100", runs::incrementAndGet));
+
+        // The duplicate stays blocked while the first request is in progress
+        assertThrows(TimeoutException.class, () -> duplicate.get(200, TimeUnit.MILLISECONDS));
+
+        finish.countDown();
+
+        assertFalse(first.get(5, TimeUnit.SECONDS));
+        assertTrue(duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @DisplayName("Execute - Key committed concurrently on another node is replayed")
+    @Test
+    void executeKeyCommittedConcurrently() {
+        when(idempotencyKeyRepository.findById("10:key-1"))
+                .thenReturn(Optional.empty(), Optional.of(buildKey("deposit:1:100")));
+
+        assertTrue(idempotencyService.execute(10, "key-1", "deposit:1:100", () -> {
+            throw new DataIntegrityViolationException("Duplicate entry");
+        }));
+    }
+
+    @DisplayName("Execute - Failed - Key too long")
+    @Test
+    void executeKeyTooLong() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute(10, "k".repeat(65), "deposit:1:100", () -> fail("Operation was run")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @DisplayName("Fingerprint - Amounts are compared by value")
+    @Test
+    void fingerprint() {
+        assertEquals(IdempotencyService.fingerprint("withdraw", 1, new BigDecimal("10")),
+                IdempotencyService.fingerprint("withdraw", 1, new BigDecimal("10.00")));
+    }
+
+    private IdempotencyKey buildKey(String fingerprint) {
+        return IdempotencyKey.builder()
+                .id("10:key-1")
+                .fingerprint(fingerprint)
+                .build();
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
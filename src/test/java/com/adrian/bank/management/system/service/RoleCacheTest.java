@@ -0,0 +1,69 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.entity.ERole;
+import com.adrian.bank.management.system.entity.Role;
+import com.adrian.bank.management.system.repository.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleCacheTest {
+
+    @Mock
+    RoleRepository roleRepository;
+
+    RoleCache roleCache;
+
+    @BeforeEach
+    void setUp() {
+        roleCache = new RoleCache(roleRepository);
+    }
+
+    @DisplayName("Roles loaded at startup are returned without db access")
+    @Test
+    void rolesLoadedOnce() {
+        Role customer = new Role(ERole.ROLE_CUSTOMER);
+        Role teller = new Role(ERole.ROLE_TELLER);
+        when(roleRepository.findAll()).thenReturn(List.of(customer, teller));
+
+        roleCache.load();
+
+        assertSame(customer, roleCache.getRole(ERole.ROLE_CUSTOMER));
+        assertSame(teller, roleCache.getRole(ERole.ROLE_TELLER));
+        assertSame(customer, roleCache.getRole(ERole.ROLE_CUSTOMER));
+        verify(roleRepository, times(1)).findAll();
+    }
+
+    @DisplayName("Role missing from the cache is reloaded")
+    @Test
+    void missingRoleReloaded() {
+        Role customer = new Role(ERole.ROLE_CUSTOMER);
+        when(roleRepository.findAll()).thenReturn(List.of()).thenReturn(List.of(customer));
+
+        roleCache.load();
+
+        assertSame(customer, roleCache.getRole(ERole.ROLE_CUSTOMER));
+        verify(roleRepository, times(2)).findAll();
+    }
+
+    @DisplayName("Role not in the db - exception, absence is not cached")
+    @Test
+    void unknownRole() {
+        Role admin = new Role(ERole.ROLE_ADMIN);
+        when(roleRepository.findAll()).thenReturn(List.of()).thenReturn(List.of(admin));
+
+        assertThrows(IllegalStateException.class, () -> roleCache.getRole(ERole.ROLE_ADMIN));
+
+        assertSame(admin, roleCache.getRole(ERole.ROLE_ADMIN));
+        verify(roleRepository, times(2)).findAll();
+    }
+}
@@ -0,0 +1,198 @@
+package com.adrian.bank.management.system.service;
+
+import com.adrian.bank.management.system.entity.Account;
+import com.adrian.bank.management.system.entity.JournalEntry;
+import com.adrian.bank.management.system.entity.Transaction;
+import com.adrian.bank.management.system.entity.TransactionType;
+import com.adrian.bank.management.system.repository.AccountRepository;
+import com.adrian.bank.management.system.repository.JournalEntryRepository;
+import com.adrian.bank.management.system.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionJournalTest {
+
+    @Mock
+    JournalEntryRepository journalEntryRepository;
+
+    @Mock
+    TransactionRepository transactionRepository;
+
+    @Mock
+    AccountRepository accountRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    MeterRegistry meterRegistry;
+
+    TransactionJournal transactionJournal;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionJournal = new TransactionJournal(journalEntryRepository, transactionRepository, accountRepository,
+                new TransactionTemplate(transactionManager), meterRegistry, true, 60000, 2, 3, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionJournal.shutdown();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @DisplayName("Append - Entries are pending once the transaction commits")
+    @Test
+    void append() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        transactionJournal.append(List.of(buildTransaction()));
+
+        verify(journalEntryRepository, times(1)).saveAll(argThat(entries ->
+                ((List<JournalEntry>) entries).get(0).getAccountId() == 1));
+        assertEquals(0, pending());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(1, pending());
+    }
+
+    @DisplayName("Append - Failed - Journal is full")
+    @Test
+    void appendJournalFull() {
+        transactionJournal.append(List.of(buildTransaction(), buildTransaction()));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> transactionJournal.append(List.of(buildTransaction(), buildTransaction())));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        verify(journalEntryRepository, times(1)).saveAll(anyList());
+    }
+
+    @DisplayName("Flush - Entries are moved to the transaction table in batches")
+    @Test
+    void flush() {
+        when(journalEntryRepository.findOldestForUpdate(eq(2), any()))
+                .thenReturn(List.of(buildEntry(1L), buildEntry(2L)), List.of(buildEntry(3L)));
+        when(accountRepository.getReferenceById(1)).thenReturn(Account.builder().id(1).build());
+
+        transactionJournal.flush();
+
+        ArgumentCaptor<List<Transaction>> transactions = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(2)).saveAll(transactions.capture());
+        assertEquals(2, transactions.getAllValues().get(0).size());
+        assertEquals(BigDecimal.TEN, transactions.getAllValues().get(0).get(0).getAmount());
+
+        verify(journalEntryRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(journalEntryRepository).deleteAllByIdInBatch(List.of(3L));
+    }
+
+    @DisplayName("Flush - Batch failed - Entries are moved one by one, the failing one is retried later")
+    @Test
+    void flushFailingEntry() {
+        JournalEntry entry = buildEntry(1L);
+        JournalEntry failingEntry = buildEntry(2L);
+        when(journalEntryRepository.findOldestForUpdate(eq(2), any())).thenReturn(List.of(entry, failingEntry));
+        when(accountRepository.getReferenceById(1)).thenReturn(Account.builder().id(1).build());
+        when(transactionRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("Rejected"));
+        when(journalEntryRepository.findByIdForUpdate(1L, 2)).thenReturn(Optional.of(entry));
+        when(journalEntryRepository.findByIdForUpdate(2L, 2)).thenReturn(Optional.of(failingEntry));
+        when(transactionRepository.save(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("Rejected"));
+        when(journalEntryRepository.findById(2L)).thenReturn(Optional.of(failingEntry));
+
+        transactionJournal.flush();
+
+        verify(journalEntryRepository, times(1)).delete(entry);
+        verify(journalEntryRepository, never()).delete(failingEntry);
+        verify(journalEntryRepository, times(1)).findOldestForUpdate(eq(2), any());
+        assertEquals(1, failingEntry.getAttempts());
+        assertEquals(0, meterRegistry.get("bank.journal.failed").counter().count());
+    }
+
+    @DisplayName("Flush - Entry failed its last attempt - Left in the outbox and counted")
+    @Test
+    void flushGivesUpOnEntry() {
+        transactionJournal.append(List.of(buildTransaction()));
+
+        JournalEntry failingEntry = buildEntry(1L);
+        failingEntry.setAttempts(1);
+        when(journalEntryRepository.findOldestForUpdate(eq(2), any())).thenReturn(List.of(failingEntry));
+        when(accountRepository.getReferenceById(1)).thenReturn(Account.builder().id(1).build());
+        when(transactionRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("Rejected"));
+        when(journalEntryRepository.findByIdForUpdate(1L, 2)).thenReturn(Optional.of(failingEntry));
+        when(transactionRepository.save(any())).thenThrow(new DataIntegrityViolationException("Rejected"));
+        when(journalEntryRepository.findById(1L)).thenReturn(Optional.of(failingEntry));
+
+        transactionJournal.flush();
+
+        verify(journalEntryRepository, never()).delete(any());
+        assertEquals(2, failingEntry.getAttempts());
+        assertEquals(0, pending());
+        assertEquals(1, meterRegistry.get("bank.journal.failed").counter().count());
+    }
+
+    @DisplayName("Start - Entries left from previous run are moved")
+    @Test
+    void startReplaysJournal() {
+        when(journalEntryRepository.countByAttemptsLessThan(2)).thenReturn(1L);
+        when(journalEntryRepository.findOldestForUpdate(eq(2), any())).thenReturn(List.of(buildEntry(1L)));
+        when(accountRepository.getReferenceById(1)).thenReturn(Account.builder().id(1).build());
+
+        transactionJournal.start();
+
+        verify(journalEntryRepository, timeout(5000)).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    private double pending() {
+        return meterRegistry.get("bank.journal.pending").gauge().value();
+    }
+
+    private Transaction buildTransaction() {
+        return Transaction.builder()
+                .account(Account.builder().id(1).build())
+                .amount(BigDecimal.TEN)
+                .type(TransactionType.DEPOSIT)
+                .dateTime(LocalDateTime.now())
+                .build();
+    }
+
+    private JournalEntry buildEntry(Long id) {
+        return JournalEntry.builder()
+                .id(id)
+                .accountId(1)
+                .amount(BigDecimal.TEN)
+                .type(TransactionType.DEPOSIT)
+                .dateTime(LocalDateTime.now())
+                .build();
+    }
+}
@@ -1,9 +1,14 @@
 package com.adrian.bank.management.system.service;
 
+import com.adrian.bank.management.system.dto.ExportFormat;
+import com.adrian.bank.management.system.dto.TransactionCursor;
 import com.adrian.bank.management.system.dto.TransactionDTO;
+import com.adrian.bank.management.system.dto.TransactionHistoryPage;
 import com.adrian.bank.management.system.entity.Transaction;
 import com.adrian.bank.management.system.entity.TransactionType;
 import com.adrian.bank.management.system.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,11 +17,19 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -30,34 +43,122 @@ class TransactionServiceTest {
     @Mock
     TransactionRepository transactionRepository;
 
+    @Mock
+    AccountOwnershipCache accountOwnershipCache;
+
+    @Mock
+    TransactionJournal transactionJournal;
+
     @BeforeEach
     void setUp() {
-        transactionService = new TransactionService(transactionRepository);
+        transactionService = new TransactionService(transactionRepository, accountOwnershipCache, transactionJournal,
+                new ObjectMapper().registerModule(new JavaTimeModule()));
     }
 
     @DisplayName("Get all transactions for given user's account")
     @Test
     void getTransactionsForUserAccount() {
-        Transaction transactionFromDb = buildTransaction();
+        TransactionDTO transactionFromDb = buildTransactionDTO(1, LocalDateTime.now());
 
-        when(transactionRepository.findByAccount_IdAndAccount_User_Username(anyInt(), anyString(), any()))
+        when(transactionRepository.findPageByAccount(anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(transactionFromDb), Pageable.unpaged(), 1));
 
         Page<TransactionDTO> transactionDTOPage =
-                transactionService.getTransactionsForUserAccount("username", 1, Pageable.unpaged());
+                transactionService.getTransactionsForUserAccount(10, 1, Pageable.unpaged());
 
         assertNotNull(transactionDTOPage);
         assertEquals(1, transactionDTOPage.getContent().size());
         assertEquals(1, transactionDTOPage.getTotalElements());
     }
 
-    private Transaction buildTransaction() {
-        return Transaction.builder()
-                .id(1)
-                .amount(BigDecimal.valueOf(200))
-                .dateTime(LocalDateTime.now())
-                .type(TransactionType.TRANSFER)
-                .build();
+    @DisplayName("Get transaction history - First page with cursor to the next one")
+    @Test
+    void getTransactionHistoryFirstPage() {
+        LocalDateTime now = LocalDateTime.now();
+
+        when(transactionRepository.findFirstHistoryPage(eq(1), any()))
+                .thenReturn(List.of(buildTransactionDTO(3, now), buildTransactionDTO(2, now), buildTransactionDTO(1, now)));
+
+        TransactionHistoryPage page = transactionService.getTransactionHistory(10, 1, null, 2);
+
+        assertEquals(2, page.transactions().size());
+        assertEquals(new TransactionCursor(now, 2), TransactionCursor.decode(page.nextCursor()));
+        verify(transactionRepository).findFirstHistoryPage(1, PageRequest.of(0, 3));
+    }
+
+    @DisplayName("Get transaction history - Last page has no cursor")
+    @Test
+    void getTransactionHistoryLastPage() {
+        LocalDateTime now = LocalDateTime.now();
+        String cursor = new TransactionCursor(now, 2).encode();
+
+        when(transactionRepository.findHistoryPageAfter(eq(1), eq(now), eq(2), any()))
+                .thenReturn(List.of(buildTransactionDTO(1, now)));
+
+        TransactionHistoryPage page = transactionService.getTransactionHistory(10, 1, cursor, 2);
+
+        assertEquals(1, page.transactions().size());
+        assertNull(page.nextCursor());
+    }
+
+    @DisplayName("Get transaction history - Failed - Invalid cursor")
+    @Test
+    void getTransactionHistoryInvalidCursor() {
+        assertThrows(ResponseStatusException.class,
+                () -> transactionService.getTransactionHistory(10, 1, "invalid", 2));
+    }
+
+    @DisplayName("Export transactions as NDJSON - One line per transaction")
+    @Test
+    void exportTransactionsNdjson() throws IOException {
+        when(transactionRepository.streamAllForExport(1)).thenReturn(Stream.of(
+                new TransactionDTO(1, LocalDateTime.of(2023, 1, 1, 10, 0), new BigDecimal("200.00"), TransactionType.DEPOSIT),
+                new TransactionDTO(2, LocalDateTime.of(2023, 1, 2, 10, 0), new BigDecimal("50.50"), TransactionType.WITHDRAW)));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        transactionService.exportTransactions(10, 1, ExportFormat.NDJSON, outputStream);
+
+        assertEquals("""
+                {"id":1,"dateTime":[2023,1,1,10,0],"amount":200.00,"type":"DEPOSIT"}
+                {"id":2,"dateTime":[2023,1,2,10,0],"amount":50.50,"type":"WITHDRAW"}
+                """, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @DisplayName("Export transactions as CSV - Header and one row per transaction")
+    @Test
+    void exportTransactionsCsv() throws IOException {
+        when(transactionRepository.streamAllForExport(1)).thenReturn(Stream.of(
+                new TransactionDTO(1, LocalDateTime.of(2023, 1, 1, 10, 0), new BigDecimal("200.00"), TransactionType.DEPOSIT)));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        transactionService.exportTransactions(10, 1, ExportFormat.CSV, outputStream);
+
+        assertEquals("""
+                id,dateTime,amount,type
+                1,2023-01-01T10:00,200.00,DEPOSIT
+                """, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @DisplayName("Export transactions - Output fails - Cursor and output are closed")
+    @Test
+    void exportTransactionsOutputFailed() throws IOException {
+        AtomicBoolean cursorClosed = new AtomicBoolean();
+        when(transactionRepository.streamAllForExport(1)).thenReturn(Stream.of(
+                        new TransactionDTO(1, LocalDateTime.of(2023, 1, 1, 10, 0), new BigDecimal("200.00"), TransactionType.DEPOSIT))
+                .onClose(() -> cursorClosed.set(true)));
+
+        OutputStream outputStream = mock(OutputStream.class);
+        doThrow(new IOException("Broken pipe")).when(outputStream).write(any(byte[].class), anyInt(), anyInt());
+
+        assertThrows(IOException.class,
+                () -> transactionService.exportTransactions(10, 1, ExportFormat.CSV, outputStream));
+
+        assertTrue(cursorClosed.get());
+        verify(outputStream, times(1)).close();
+    }
+
+    private TransactionDTO buildTransactionDTO(Integer id, LocalDateTime dateTime) {
+        return new TransactionDTO(id, dateTime, BigDecimal.valueOf(200), TransactionType.TRANSFER);
     }
 
     @DisplayName("Save transaction to db")
@@ -67,4 +168,24 @@ class TransactionServiceTest {
 
         verify(transactionRepository, times(1)).save(any());
     }
-}
\ No newline at end of file
+
+    @DisplayName("Save batch of transactions to db")
+    @Test
+    void saveTransactions() {
+        transactionService.saveTransactions(List.of(new Transaction(), new Transaction()));
+
+        verify(transactionRepository, times(1)).saveAll(anyList());
+    }
+
+    @DisplayName("Save transaction - Journal mode - Appended to the journal")
+    @Test
+    void saveTransactionJournal() {
+        when(transactionJournal.isEnabled()).thenReturn(true);
+
+        Transaction transaction = new Transaction();
+        transactionService.saveTransaction(transaction);
+
+        verify(transactionJournal, times(1)).append(List.of(transaction));
+        verify(transactionRepository, times(0)).save(any());
+    }
+}
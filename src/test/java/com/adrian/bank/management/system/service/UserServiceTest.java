@@ -6,6 +6,7 @@ import com.adrian.bank.management.system.entity.Role;
 import com.adrian.bank.management.system.entity.User;
 import com.adrian.bank.management.system.repository.RoleRepository;
 import com.adrian.bank.management.system.repository.UserRepository;
+import com.adrian.bank.management.system.security.TokenRevocationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,6 +19,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,11 +37,14 @@ class UserServiceTest {
 
     PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
+    TokenRevocationRegistry tokenRevocationRegistry = new TokenRevocationRegistry();
+
     UserService userService;
 
     @BeforeEach
     void setUp() {
-        userService = new UserService(userRepository, roleRepository, passwordEncoder);
+        userService = new UserService(userRepository, new RoleCache(roleRepository), passwordEncoder,
+                tokenRevocationRegistry);
     }
 
     @DisplayName("Get user information")
@@ -63,6 +68,19 @@ class UserServiceTest {
 
         verify(userRepository, times(0)).existsByUsername(anyString());
         verify(userRepository, times(1)).save(any());
+        assertFalse(tokenRevocationRegistry.isRevoked("customer", 0));
+    }
+
+    @DisplayName("Update user information - Username changed - Old tokens revoked")
+    @Test
+    void updateUserDetailsUsernameChanged() {
+        when(userRepository.existsByUsername("newCustomer")).thenReturn(false);
+        when(userRepository.findByUsername("customer")).thenReturn(Optional.of(buildUser()));
+
+        userService.updateUserDetails(new UserProfile("newCustomer", "Krzysztof Chluba", "567622456",
+                "krzysztof@wp.pl"), "customer");
+
+        assertTrue(tokenRevocationRegistry.isRevoked("customer", 0));
     }
 
     @DisplayName("Update user information - Failed - Username already exists")
@@ -114,6 +132,7 @@ class UserServiceTest {
         assertTrue(passwordEncoder.matches(newPassword, user.getPassword()));
 
         verify(userRepository, times(1)).save(user);
+        assertTrue(tokenRevocationRegistry.isRevoked("customer", 0));
     }
 
     @DisplayName("Create user - Username already exists")
@@ -131,7 +150,7 @@ class UserServiceTest {
                 .existsByUsername(anyString());
 
         verify(roleRepository, times(0))
-                .findByName(any());
+                .findAll();
 
         verify(userRepository, times(0))
                 .save(any());
@@ -146,8 +165,8 @@ class UserServiceTest {
         when(userRepository.existsByUsername(anyString()))
                 .thenReturn(false);
 
-        when(roleRepository.findByName(any()))
-                .thenReturn(roleFromDb);
+        when(roleRepository.findAll())
+                .thenReturn(List.of(roleFromDb));
 
         userService.createUser(userToCreate);
 
@@ -155,9 +174,9 @@ class UserServiceTest {
                 .existsByUsername(anyString());
 
         verify(roleRepository, times(1))
-                .findByName(any());
+                .findAll();
 
         verify(userRepository, times(1))
-                .save(any());
+                .save(argThat(user -> user.getRole() == roleFromDb));
     }
 }
\ No newline at end of file